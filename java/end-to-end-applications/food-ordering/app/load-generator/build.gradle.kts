@@ -0,0 +1,58 @@
+plugins {
+    java
+    application
+    id("com.diffplug.spotless") version "8.8.0"
+}
+
+repositories {
+    mavenCentral()
+}
+
+val restateVersion = "2.9.4"
+
+dependencies {
+    // Services and types of the food ordering app
+    implementation(project(":restate-app"))
+
+    // Restate SDK, for the ingress client
+    implementation("dev.restate:sdk-java-http:$restateVersion")
+
+    // Latency histograms
+    implementation("org.hdrhistogram:HdrHistogram:2.2.2")
+
+    // Logging
+    implementation("org.apache.logging.log4j:log4j-api:2.24.1")
+}
+
+// Set main class
+application {
+    mainClass.set("dev.restate.sdk.examples.loadgen.LoadGenerator")
+    // Java 25 warnings: --enable-native-access for the Restate SDK state machine, --sun-misc-unsafe-memory-access for netty.
+    applicationDefaultJvmArgs = listOf("--enable-native-access=ALL-UNNAMED", "--sun-misc-unsafe-memory-access=allow")
+}
+
+// Run with ./gradlew :load-generator:statusReadLoadTest against a running setup
+tasks.register<JavaExec>("statusReadLoadTest") {
+    group = "benchmark"
+    description = "Measures the status reads/sec of the OrderStatusService under concurrent ETA updates"
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("dev.restate.sdk.examples.loadgen.StatusReadLoadTest")
+    jvmArgs("--enable-native-access=ALL-UNNAMED", "--sun-misc-unsafe-memory-access=allow")
+}
+
+tasks.withType<JavaCompile> {
+    // Using -parameters allows to use Jackson ParameterName feature
+    // https://github.com/FasterXML/jackson-modules-java8/tree/2.14/parameter-names
+    options.compilerArgs.add("-parameters")
+}
+
+// Code formatting tool
+spotless {
+    isEnforceCheck = false
+    java {
+        importOrder()
+        removeUnusedImports()
+        googleJavaFormat()
+        formatAnnotations()
+    }
+}
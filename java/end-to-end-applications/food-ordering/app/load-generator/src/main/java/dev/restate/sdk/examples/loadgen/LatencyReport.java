@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.loadgen;
+
+import dev.restate.client.Client;
+import dev.restate.sdk.examples.OrderStatusService;
+import dev.restate.sdk.examples.types.StatusEnum;
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency histograms of the orders, in milliseconds: from order creation to each status, and
+ * between each two consecutive statuses. The order status service pushes every status change to the
+ * tracker of the order, so there is no polling load on the runtime and no poll interval in the
+ * latencies. A status that gets replaced before the tracker resubscribes is skipped.
+ */
+class LatencyReport {
+
+  private static final long HIGHEST_TRACKABLE_MS = TimeUnit.HOURS.toMillis(1);
+
+  private final Map<StatusEnum, Histogram> sinceCreated = new ConcurrentHashMap<>();
+  private final Map<String, Histogram> transitions = new ConcurrentHashMap<>();
+  private final LongAdder delivered = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+
+  OrderTracker track(String orderId) {
+    return new OrderTracker(orderId);
+  }
+
+  long delivered() {
+    return delivered.sum();
+  }
+
+  void failed() {
+    failed.increment();
+  }
+
+  void print(PrintStream out, long submitted, long durationSeconds) {
+    out.println();
+    out.printf(
+        "Orders submitted: %d (%.1f/s), delivered: %d, rejected: %d, failed: %d%n",
+        submitted, (double) submitted / durationSeconds, delivered(), rejected.sum(), failed.sum());
+
+    out.println();
+    out.println("Latency since order creation (ms)");
+    printHeader(out);
+    for (var status : StatusEnum.values()) {
+      if (sinceCreated.containsKey(status)) {
+        printRow(out, status.name(), sinceCreated.get(status));
+      }
+    }
+
+    out.println();
+    out.println("Latency of status transitions (ms)");
+    printHeader(out);
+    new TreeMap<>(transitions).forEach((name, histogram) -> printRow(out, name, histogram));
+
+    var endToEnd = sinceCreated.get(StatusEnum.DELIVERED);
+    if (endToEnd != null) {
+      out.println();
+      out.println("Order created -> DELIVERED, percentile distribution (ms)");
+      endToEnd.outputPercentileDistribution(out, 1.0);
+    }
+  }
+
+  private static void printHeader(PrintStream out) {
+    out.printf("%-45s %8s %8s %8s %8s %8s%n", "", "count", "p50", "p90", "p99", "max");
+  }
+
+  private static void printRow(PrintStream out, String name, Histogram histogram) {
+    out.printf(
+        "%-45s %8d %8d %8d %8d %8d%n",
+        name,
+        histogram.getTotalCount(),
+        histogram.getValueAtPercentile(50),
+        histogram.getValueAtPercentile(90),
+        histogram.getValueAtPercentile(99),
+        histogram.getMaxValue());
+  }
+
+  private static Histogram newHistogram() {
+    return new ConcurrentHistogram(HIGHEST_TRACKABLE_MS, 3);
+  }
+
+  /** Follows one order through its statuses. */
+  class OrderTracker {
+    private final String orderId;
+    private final long createdAt = System.nanoTime();
+    private StatusEnum lastStatus = StatusEnum.NEW;
+    private long lastStatusAt = createdAt;
+
+    private OrderTracker(String orderId) {
+      this.orderId = orderId;
+    }
+
+    /** Follows the status of the order until it is delivered, rejected or cancelled. */
+    void followUntilDone(Client client) {
+      var orderStatusService = client.virtualObjectHandle(OrderStatusService.class, orderId);
+      while (true) {
+        var status =
+            orderStatusService.call(OrderStatusService::awaitStatusChange, lastStatus).response();
+        observe(status);
+        switch (status) {
+          case DELIVERED -> {
+            delivered.increment();
+            return;
+          }
+          case REJECTED, CANCELLED -> {
+            rejected.increment();
+            return;
+          }
+          default -> {}
+        }
+      }
+    }
+
+    private void observe(StatusEnum status) {
+      long now = System.nanoTime();
+      sinceCreated
+          .computeIfAbsent(status, s -> newHistogram())
+          .recordValue(clamp(TimeUnit.NANOSECONDS.toMillis(now - createdAt)));
+      transitions
+          .computeIfAbsent(lastStatus + " -> " + status, s -> newHistogram())
+          .recordValue(clamp(TimeUnit.NANOSECONDS.toMillis(now - lastStatusAt)));
+      lastStatus = status;
+      lastStatusAt = now;
+    }
+
+    private long clamp(long millis) {
+      return Math.min(millis, HIGHEST_TRACKABLE_MS);
+    }
+  }
+}
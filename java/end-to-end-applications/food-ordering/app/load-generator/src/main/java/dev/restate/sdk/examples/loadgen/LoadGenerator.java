@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.loadgen;
+
+import dev.restate.client.Client;
+import dev.restate.sdk.examples.OrderWorkflow;
+import dev.restate.sdk.examples.types.OrderRequest;
+import dev.restate.sdk.examples.types.Product;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Standalone load generator for the food ordering app. It talks to the Restate ingress only, so it
+ * does not take part in the measurements like the DriverMobileAppSimulator does.
+ *
+ * <ul>
+ *   <li>Submits orders to the order workflow at a fixed rate, and tracks each order until it is
+ *       delivered.
+ *   <li>Simulates drivers in-process, each on its own virtual thread.
+ *   <li>Serves a stub of the restaurant POS server, so no services other than the runtime and the
+ *       delivery service are needed. Start the delivery service with its default
+ *       RESTAURANT_ENDPOINT, or point it to this process.
+ * </ul>
+ *
+ * <p>At the end it prints HdrHistogram latencies from order creation to each status.
+ *
+ * <p>Configured with environment variables: RESTATE_RUNTIME_ENDPOINT, ORDERS_PER_SECOND, DRIVERS,
+ * DURATION_SECONDS, DRAIN_TIMEOUT_SECONDS, DRIVER_MOVE_INTERVAL_MS, PREPARATION_TIME_MS,
+ * ORDER_DELIVERY_DELAY_MS, RESTAURANT_STUB_PORT (0 disables the stub).
+ */
+public class LoadGenerator {
+  private static final Logger logger = LogManager.getLogger(LoadGenerator.class);
+
+  static final String RESTATE_RUNTIME_ENDPOINT =
+      env("RESTATE_RUNTIME_ENDPOINT", "http://localhost:8080");
+  static final double ORDERS_PER_SECOND = Double.parseDouble(env("ORDERS_PER_SECOND", "5"));
+  static final int DRIVERS = Integer.parseInt(env("DRIVERS", "100"));
+  static final long DURATION_SECONDS = Long.parseLong(env("DURATION_SECONDS", "60"));
+  static final long DRAIN_TIMEOUT_SECONDS = Long.parseLong(env("DRAIN_TIMEOUT_SECONDS", "300"));
+  static final long DRIVER_MOVE_INTERVAL_MS =
+      Long.parseLong(env("DRIVER_MOVE_INTERVAL_MS", "1000"));
+  static final long PREPARATION_TIME_MS = Long.parseLong(env("PREPARATION_TIME_MS", "3000"));
+  static final int ORDER_DELIVERY_DELAY_MS = Integer.parseInt(env("ORDER_DELIVERY_DELAY_MS", "0"));
+  static final int RESTAURANT_STUB_PORT = Integer.parseInt(env("RESTAURANT_STUB_PORT", "5050"));
+
+  public static void main(String[] args) throws Exception {
+    Client client = Client.connect(RESTATE_RUNTIME_ENDPOINT);
+    // Keys of this run, so drivers and orders of an earlier, aborted run don't interfere
+    String runId = UUID.randomUUID().toString().substring(0, 8);
+
+    RestaurantStub restaurant = null;
+    if (RESTAURANT_STUB_PORT > 0) {
+      restaurant = new RestaurantStub(client, RESTAURANT_STUB_PORT, PREPARATION_TIME_MS);
+      restaurant.start();
+    }
+
+    var report = new LatencyReport();
+    var running = new AtomicBoolean(true);
+    ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+
+    for (int i = 0; i < DRIVERS; i++) {
+      threads.submit(
+          new SimulatedDriver(
+              client, "loadgen-" + runId + "-driver-" + i, DRIVER_MOVE_INTERVAL_MS, running));
+    }
+
+    // Submit orders at the configured rate, each order is tracked on its own virtual thread
+    var ordersInFlight = new AtomicInteger();
+    var submitted = new AtomicLong();
+    ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+    long periodNanos = (long) (1_000_000_000 / ORDERS_PER_SECOND);
+    ticker.scheduleAtFixedRate(
+        () -> {
+          var orderId = "loadgen-" + runId + "-order-" + submitted.incrementAndGet();
+          ordersInFlight.incrementAndGet();
+          threads.submit(
+              () -> {
+                try {
+                  trackOrder(client, orderId, report);
+                } finally {
+                  ordersInFlight.decrementAndGet();
+                }
+              });
+        },
+        0,
+        periodNanos,
+        TimeUnit.NANOSECONDS);
+    ticker.scheduleAtFixedRate(
+        () ->
+            logger.info("Orders submitted: {}, delivered: {}", submitted.get(), report.delivered()),
+        10,
+        10,
+        TimeUnit.SECONDS);
+
+    Thread.sleep(TimeUnit.SECONDS.toMillis(DURATION_SECONDS));
+    ticker.shutdownNow();
+
+    logger.info("Stopped submitting orders, waiting for {} orders in flight", ordersInFlight.get());
+    long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_TIMEOUT_SECONDS);
+    while (ordersInFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+      Thread.sleep(500);
+    }
+    if (ordersInFlight.get() > 0) {
+      logger.warn(
+          "{} orders were not done within {} seconds", ordersInFlight.get(), DRAIN_TIMEOUT_SECONDS);
+    }
+
+    running.set(false);
+    threads.shutdownNow();
+    if (restaurant != null) {
+      restaurant.stop();
+    }
+
+    report.print(System.out, submitted.get(), DURATION_SECONDS);
+    System.exit(0);
+  }
+
+  private static void trackOrder(Client client, String orderId, LatencyReport report) {
+    var order =
+        new OrderRequest(
+            orderId,
+            "restaurant-1",
+            new Product[] {new Product("pizza", "Margherita", 1)},
+            10,
+            ORDER_DELIVERY_DELAY_MS);
+    var tracker = report.track(orderId);
+    try {
+      client.serviceHandle(OrderWorkflow.class).send(OrderWorkflow::create, order);
+      tracker.followUntilDone(client);
+    } catch (Exception e) {
+      logger.warn("Order {} failed: {}", orderId, e.getMessage());
+      report.failed();
+    }
+  }
+
+  private static String env(String name, String defaultValue) {
+    return System.getenv(name) != null ? System.getenv(name) : defaultValue;
+  }
+}
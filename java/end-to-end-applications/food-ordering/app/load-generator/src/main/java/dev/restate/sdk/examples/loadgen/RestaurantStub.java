@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import dev.restate.client.Client;
+import dev.restate.serde.TypeTag;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Stub of the restaurant POS server: accepts every preparation request and resolves the callback of
+ * the order workflow after the preparation time.
+ */
+class RestaurantStub {
+  private static final Logger logger = LogManager.getLogger(RestaurantStub.class);
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final Client client;
+  private final int port;
+  private final long preparationTimeMillis;
+  private final ScheduledExecutorService preparations = Executors.newScheduledThreadPool(1);
+  private HttpServer server;
+
+  RestaurantStub(Client client, int port, long preparationTimeMillis) {
+    this.client = client;
+    this.port = port;
+    this.preparationTimeMillis = preparationTimeMillis;
+  }
+
+  void start() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(port), 0);
+    server.createContext(
+        "/prepare",
+        exchange -> {
+          try (exchange) {
+            var callbackId = MAPPER.readTree(exchange.getRequestBody()).get("cb").asText();
+            preparations.schedule(
+                () -> resolve(callbackId), preparationTimeMillis, TimeUnit.MILLISECONDS);
+            exchange.sendResponseHeaders(200, -1);
+          }
+        });
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    server.start();
+    logger.info("Restaurant stub is listening on port {}", port);
+  }
+
+  void stop() {
+    server.stop(0);
+    preparations.shutdownNow();
+  }
+
+  private void resolve(String callbackId) {
+    client
+        .awakeableHandle(callbackId)
+        .resolveAsync(TypeTag.of(Void.TYPE), null)
+        .exceptionally(
+            failure -> {
+              logger.warn("Failed to resolve preparation callback {}", callbackId, failure);
+              return null;
+            });
+  }
+}
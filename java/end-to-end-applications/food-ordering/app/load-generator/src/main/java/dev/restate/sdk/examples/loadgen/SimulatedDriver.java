@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.loadgen;
+
+import dev.restate.client.Client;
+import dev.restate.sdk.examples.DriverDigitalTwin;
+import dev.restate.sdk.examples.types.AssignedDelivery;
+import dev.restate.sdk.examples.types.Location;
+import dev.restate.sdk.examples.utils.GeoUtils;
+import dev.restate.sdk.examples.utils.LocationCodec;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A driver's mobile app, simulated in-process. Does the same as the DriverMobileAppSimulator, but
+ * talks to the driver's digital twin through the ingress: it waits for the twin to push the next
+ * assigned delivery, and sends location updates in the binary encoding that the twin also gets via
+ * Kafka.
+ */
+class SimulatedDriver implements Runnable {
+  private static final Logger logger = LogManager.getLogger(SimulatedDriver.class);
+
+  private final Client client;
+  private final String driverId;
+  private final long moveIntervalMillis;
+  private final AtomicBoolean running;
+  private Location location = GeoUtils.randomLocation();
+
+  SimulatedDriver(Client client, String driverId, long moveIntervalMillis, AtomicBoolean running) {
+    this.client = client;
+    this.driverId = driverId;
+    this.moveIntervalMillis = moveIntervalMillis;
+    this.running = running;
+  }
+
+  @Override
+  public void run() {
+    var twin = client.virtualObjectHandle(DriverDigitalTwin.class, driverId);
+    try {
+      sendLocation();
+      twin.call(DriverDigitalTwin::setDriverAvailable, GeoUtils.DEMO_REGION);
+
+      while (running.get()) {
+        // One suspended invocation per delivery, instead of polling the twin
+        AssignedDelivery delivery =
+            twin.call(DriverDigitalTwin::awaitDeliveryAssignment).response();
+        moveTo(delivery.getRestaurantLocation());
+        twin.call(DriverDigitalTwin::notifyDeliveryPickup);
+        moveTo(delivery.getCustomerLocation());
+        twin.call(DriverDigitalTwin::notifyDeliveryDelivered);
+        twin.call(DriverDigitalTwin::setDriverAvailable, GeoUtils.DEMO_REGION);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      logger.error("Driver {} stopped: {}", driverId, e.getMessage());
+    }
+  }
+
+  private void moveTo(Location destination) throws InterruptedException {
+    while (!location.equals(destination)) {
+      Thread.sleep(moveIntervalMillis);
+      location = GeoUtils.moveToDestination(location, destination);
+      sendLocation();
+    }
+  }
+
+  private void sendLocation() {
+    client
+        .virtualObjectHandle(DriverDigitalTwin.class, driverId)
+        .send(DriverDigitalTwin::handleDriverLocationUpdateEvent, LocationCodec.encode(location));
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.loadgen;
+
+import dev.restate.client.Client;
+import dev.restate.sdk.examples.OrderStatusService;
+import dev.restate.sdk.examples.types.StatusEnum;
+import dev.restate.sdk.examples.types.StatusUpdate;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Load test of the status reads of the OrderStatusService while ETA updates keep coming in for the
+ * same orders. Reader threads call the shared get handler through the ingress as fast as they can,
+ * while ETA updates get sent at a fixed rate. At the end it prints the reads/sec and the read
+ * latency.
+ *
+ * <p>Configured with environment variables: RESTATE_RUNTIME_ENDPOINT, STATUS_ORDERS,
+ * STATUS_READERS, ETA_UPDATES_PER_SECOND, DURATION_SECONDS.
+ */
+public class StatusReadLoadTest {
+
+  private static final int ORDERS = Integer.parseInt(env("STATUS_ORDERS", "1000"));
+  private static final int READERS = Integer.parseInt(env("STATUS_READERS", "64"));
+  private static final double ETA_UPDATES_PER_SECOND =
+      Double.parseDouble(env("ETA_UPDATES_PER_SECOND", "200"));
+  private static final long DURATION_SECONDS = Long.parseLong(env("DURATION_SECONDS", "30"));
+
+  public static void main(String[] args) throws Exception {
+    Client client = Client.connect(LoadGenerator.RESTATE_RUNTIME_ENDPOINT);
+    String runId = UUID.randomUUID().toString().substring(0, 8);
+    var orderIds = new String[ORDERS];
+    for (int i = 0; i < ORDERS; i++) {
+      orderIds[i] = "status-load-" + runId + "-order-" + i;
+      client
+          .virtualObjectHandle(OrderStatusService.class, orderIds[i])
+          .call(OrderStatusService::update, new StatusUpdate(StatusEnum.IN_DELIVERY, 60_000L));
+    }
+
+    var running = new AtomicBoolean(true);
+    var reads = new LongAdder();
+    var failedReads = new LongAdder();
+    var updates = new LongAdder();
+    Histogram readLatencyMicros = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+
+    ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor();
+    for (int i = 0; i < READERS; i++) {
+      readers.submit(
+          () -> {
+            while (running.get()) {
+              var orderId = orderIds[ThreadLocalRandom.current().nextInt(ORDERS)];
+              long start = System.nanoTime();
+              try {
+                client
+                    .virtualObjectHandle(OrderStatusService.class, orderId)
+                    .call(OrderStatusService::get);
+                readLatencyMicros.recordValue(
+                    Math.min(
+                        TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start),
+                        readLatencyMicros.getHighestTrackableValue()));
+                reads.increment();
+              } catch (Exception e) {
+                failedReads.increment();
+              }
+            }
+          });
+    }
+
+    ScheduledExecutorService updater = Executors.newSingleThreadScheduledExecutor();
+    updater.scheduleAtFixedRate(
+        () -> {
+          var orderId = orderIds[ThreadLocalRandom.current().nextInt(ORDERS)];
+          client
+              .virtualObjectHandle(OrderStatusService.class, orderId)
+              .send(
+                  OrderStatusService::update,
+                  StatusUpdate.eta(ThreadLocalRandom.current().nextLong(60_000)));
+          updates.increment();
+        },
+        0,
+        (long) (1_000_000_000 / ETA_UPDATES_PER_SECOND),
+        TimeUnit.NANOSECONDS);
+
+    Thread.sleep(TimeUnit.SECONDS.toMillis(DURATION_SECONDS));
+    running.set(false);
+    updater.shutdownNow();
+    readers.shutdown();
+    readers.awaitTermination(1, TimeUnit.MINUTES);
+
+    System.out.printf(
+        "Status reads: %d (%.1f/s), failed: %d, ETA updates: %d (%.1f/s), orders: %d,"
+            + " readers: %d%n",
+        reads.sum(),
+        (double) reads.sum() / DURATION_SECONDS,
+        failedReads.sum(),
+        updates.sum(),
+        (double) updates.sum() / DURATION_SECONDS,
+        ORDERS,
+        READERS);
+    System.out.println("Status read latency, percentile distribution (us)");
+    readLatencyMicros.outputPercentileDistribution(System.out, 1.0);
+    System.exit(0);
+  }
+
+  private static String env(String name, String defaultValue) {
+    return System.getenv(name) != null ? System.getenv(name) : defaultValue;
+  }
+}
@@ -31,6 +31,63 @@ dependencies {
     implementation("org.apache.logging.log4j:log4j-api:2.24.1")
 }
 
+// JMH benchmarks live in src/jmh/java
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[jmh.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[jmh.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
+dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+}
+
+// Run with ./gradlew :restate-app:jmh, or pass a benchmark regex with -Pjmh.includes=<regex>
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks and writes the results to build/reports/jmh/results.json"
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val resultFile = layout.buildDirectory.file("reports/jmh/results.json").get().asFile
+    args(listOfNotNull(project.findProperty("jmh.includes")?.toString()) + listOf("-rf", "json", "-rff", resultFile.absolutePath))
+    jvmArgs("--enable-native-access=ALL-UNNAMED", "--sun-misc-unsafe-memory-access=allow")
+    doFirst { resultFile.parentFile.mkdirs() }
+}
+
+// Benchmark harnesses that run against a running setup live in src/harness/java, so they don't
+// end up in the service image
+val harness: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[harness.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[harness.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
+// Run with ./gradlew :restate-app:orderLatency -Porders=<n> against a running setup
+tasks.register<JavaExec>("orderLatency") {
+    group = "benchmark"
+    description = "Measures the end-to-end latency and the journal entries per order"
+    classpath = harness.runtimeClasspath
+    mainClass.set("dev.restate.sdk.examples.external.OrderLatencyHarness")
+    args(listOfNotNull(project.findProperty("orders")?.toString()))
+}
+
+// Run with ./gradlew :restate-app:idleDriverInvocations -Pdrivers=<n> -PidleSeconds=<s> against a
+// running setup, without submitting orders
+tasks.register<JavaExec>("idleDriverInvocations") {
+    group = "benchmark"
+    description = "Measures the invocations per idle driver-hour of the driver simulator and the digital twins"
+    classpath = harness.runtimeClasspath
+    mainClass.set("dev.restate.sdk.examples.external.IdleDriverHarness")
+    args(listOfNotNull(
+        project.findProperty("drivers")?.toString() ?: "20",
+        project.findProperty("idleSeconds")?.toString()))
+}
+
 // Set main class
 application {
     mainClass.set("dev.restate.sdk.examples.AppMain")
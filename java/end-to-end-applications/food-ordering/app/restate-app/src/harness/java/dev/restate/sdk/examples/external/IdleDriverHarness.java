@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.external;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Measures the invocations that idle drivers cause. It starts a number of drivers of the driver
+ * simulator, waits until their start is done, and counts the invocations of the driver simulator
+ * and the digital twins of these drivers over a fixed idle window. It prints the invocations per
+ * idle driver-hour.
+ *
+ * <p>Run it against the full setup of the docker compose file, without submitting orders while it
+ * runs, so the drivers stay idle: {@code ./gradlew :restate-app:idleDriverInvocations -Pdrivers=20
+ * -PidleSeconds=300}.
+ *
+ * <p>The invocations are counted in the {@code sys_invocation} table of the admin API. Restate only
+ * keeps completed invocations there when journal retention is enabled, so the harness enables it
+ * for both services before it starts.
+ */
+public class IdleDriverHarness {
+
+  private static final String INGRESS_URL =
+      System.getenv("RESTATE_INGRESS_URL") != null
+          ? System.getenv("RESTATE_INGRESS_URL")
+          : "http://localhost:8080";
+  private static final String ADMIN_URL =
+      System.getenv("RESTATE_ADMIN_URL") != null
+          ? System.getenv("RESTATE_ADMIN_URL")
+          : "http://localhost:9070";
+
+  // Time for the invocations of the driver start to show up in the table
+  private static final long SETTLE_MILLIS = 2000;
+
+  private static final HttpClient httpClient = HttpClient.newHttpClient();
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  public static void main(String[] args) throws Exception {
+    int drivers = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+    long idleSeconds = args.length > 1 ? Long.parseLong(args[1]) : 300;
+
+    enableJournalRetention("DriverMobileAppSimulator");
+    enableJournalRetention("DriverDigitalTwin");
+
+    String keyPrefix = "idle-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+    for (int i = 0; i < drivers; i++) {
+      post(INGRESS_URL + "/DriverMobileAppSimulator/" + keyPrefix + i + "/startDriver", "");
+    }
+    Thread.sleep(SETTLE_MILLIS);
+
+    long atStart = invocations(keyPrefix);
+    Thread.sleep(idleSeconds * 1000);
+    long atEnd = invocations(keyPrefix);
+
+    double perDriverHour = (double) (atEnd - atStart) / drivers * 3600 / idleSeconds;
+    System.out.println("Idle drivers:                     " + drivers);
+    System.out.println("Idle window (s):                  " + idleSeconds);
+    System.out.println("Invocations to start a driver:    " + (double) atStart / drivers);
+    System.out.println("Invocations in the idle window:   " + (atEnd - atStart));
+    System.out.println("Invocations per idle driver-hour: " + perDriverHour);
+  }
+
+  // Invocations of the driver simulator and the digital twins of the drivers of this run
+  private static long invocations(String keyPrefix) throws IOException, InterruptedException {
+    return query(
+            "SELECT count(*) AS invocations FROM sys_invocation WHERE target_service_name IN"
+                + " ('DriverMobileAppSimulator', 'DriverDigitalTwin') AND target_service_key LIKE '"
+                + keyPrefix
+                + "%'")
+        .path(0)
+        .path("invocations")
+        .asLong();
+  }
+
+  private static void enableJournalRetention(String service) {
+    try {
+      var request =
+          HttpRequest.newBuilder(URI.create(ADMIN_URL + "/services/" + service))
+              .header("content-type", "application/json")
+              .method(
+                  "PATCH", HttpRequest.BodyPublishers.ofString("{\"journal_retention\":\"1h\"}"))
+              .build();
+      var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+      if (response.statusCode() >= 300) {
+        System.out.println(
+            "Could not enable journal retention for " + service + ": " + response.body());
+      }
+    } catch (IOException | InterruptedException e) {
+      System.out.println("Could not enable journal retention for " + service + ": " + e);
+    }
+  }
+
+  private static JsonNode query(String sql) throws IOException, InterruptedException {
+    var request =
+        HttpRequest.newBuilder(URI.create(ADMIN_URL + "/query"))
+            .header("content-type", "application/json")
+            .header("accept", "application/json")
+            .POST(
+                HttpRequest.BodyPublishers.ofString(
+                    mapper.writeValueAsString(Map.of("query", sql))))
+            .build();
+    return mapper.readTree(send(request)).path("rows");
+  }
+
+  private static void post(String url, String body) throws IOException, InterruptedException {
+    send(
+        HttpRequest.newBuilder(URI.create(url))
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build());
+  }
+
+  private static String send(HttpRequest request) throws IOException, InterruptedException {
+    var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    if (response.statusCode() >= 300) {
+      throw new IOException("Request to " + request.uri() + " failed: " + response.body());
+    }
+    return response.body();
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.external;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.restate.sdk.examples.types.OrderRequest;
+import dev.restate.sdk.examples.types.Product;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Small benchmark harness for the order workflow. It submits orders through the Restate ingress,
+ * waits until each of them is delivered, and prints the end-to-end latency and the number of
+ * invocations and journal entries that each order caused.
+ *
+ * <p>Run it against the full setup of the docker compose file, once before and once after a change
+ * to compare both: {@code ./gradlew :restate-app:orderLatency -Porders=20}.
+ *
+ * <p>The journal entries are read from the {@code sys_invocation} table of the admin API. Restate
+ * only keeps completed invocations there when journal retention is enabled, so the harness enables
+ * it for the order workflow and the order status service before it starts.
+ */
+public class OrderLatencyHarness {
+
+  private static final String INGRESS_URL =
+      System.getenv("RESTATE_INGRESS_URL") != null
+          ? System.getenv("RESTATE_INGRESS_URL")
+          : "http://localhost:8080";
+  private static final String ADMIN_URL =
+      System.getenv("RESTATE_ADMIN_URL") != null
+          ? System.getenv("RESTATE_ADMIN_URL")
+          : "http://localhost:9070";
+
+  private static final long POLL_INTERVAL = 100;
+  private static final long TIMEOUT = 10 * 60 * 1000;
+
+  private static final HttpClient httpClient = HttpClient.newHttpClient();
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  public static void main(String[] args) throws Exception {
+    int orders = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+    enableJournalRetention("OrderWorkflow");
+    enableJournalRetention("OrderStatusService");
+
+    // Submit all orders at once, the drivers of the simulator pick them up one by one
+    Map<String, Long> submittedAt = new HashMap<>();
+    for (int i = 0; i < orders; i++) {
+      var orderId = "bench-" + UUID.randomUUID();
+      var order =
+          new OrderRequest(
+              orderId,
+              "restaurant-1",
+              new Product[] {new Product("pizza", "Margherita", 1)},
+              10,
+              0);
+      post(
+          INGRESS_URL + "/OrderWorkflow/create/send",
+          mapper.writeValueAsString(order),
+          Map.of("idempotency-key", orderId));
+      submittedAt.put(orderId, System.currentTimeMillis());
+    }
+
+    // Poll the order status until every order is delivered
+    Map<String, Long> latencies = new HashMap<>();
+    long deadline = System.currentTimeMillis() + TIMEOUT;
+    while (latencies.size() < orders && System.currentTimeMillis() < deadline) {
+      for (var orderId : submittedAt.keySet()) {
+        if (latencies.containsKey(orderId)) {
+          continue;
+        }
+        var status = post(INGRESS_URL + "/OrderStatusService/" + orderId + "/get", "", Map.of());
+        if ("DELIVERED".equals(status.path("status").asText())) {
+          latencies.put(orderId, System.currentTimeMillis() - submittedAt.get(orderId));
+        }
+      }
+      Thread.sleep(POLL_INTERVAL);
+    }
+
+    if (latencies.size() < orders) {
+      System.out.println(
+          "Only " + latencies.size() + " of " + orders + " orders were delivered in time");
+    }
+
+    // Let the last one-way status updates complete before counting them
+    Thread.sleep(1000);
+
+    long invocations = 0;
+    long journalEntries = 0;
+    for (var orderId : latencies.keySet()) {
+      var rows =
+          query(
+              "SELECT count(*) AS invocations, sum(journal_size) AS entries FROM sys_invocation"
+                  + " WHERE (target_service_name = 'OrderWorkflow' AND idempotency_key = '"
+                  + orderId
+                  + "') OR (target_service_name = 'OrderStatusService' AND target_service_key = '"
+                  + orderId
+                  + "' AND target_handler_name != 'get')");
+      invocations += rows.path(0).path("invocations").asLong();
+      journalEntries += rows.path(0).path("entries").asLong();
+    }
+
+    List<Long> sorted = new ArrayList<>(latencies.values());
+    sorted.sort(Long::compare);
+    int delivered = Math.max(sorted.size(), 1);
+    System.out.println("Delivered orders:           " + sorted.size());
+    System.out.println("Latency p50 (ms):           " + percentile(sorted, 0.5));
+    System.out.println("Latency p99 (ms):           " + percentile(sorted, 0.99));
+    System.out.println(
+        "Latency max (ms):           " + (sorted.isEmpty() ? 0 : sorted.get(sorted.size() - 1)));
+    System.out.println("Invocations per order:      " + (double) invocations / delivered);
+    System.out.println("Journal entries per order:  " + (double) journalEntries / delivered);
+  }
+
+  private static void enableJournalRetention(String service) {
+    try {
+      var request =
+          HttpRequest.newBuilder(URI.create(ADMIN_URL + "/services/" + service))
+              .header("content-type", "application/json")
+              .method(
+                  "PATCH", HttpRequest.BodyPublishers.ofString("{\"journal_retention\":\"1h\"}"))
+              .build();
+      var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+      if (response.statusCode() >= 300) {
+        System.out.println(
+            "Could not enable journal retention for " + service + ": " + response.body());
+      }
+    } catch (IOException | InterruptedException e) {
+      System.out.println("Could not enable journal retention for " + service + ": " + e);
+    }
+  }
+
+  private static JsonNode query(String sql) throws IOException, InterruptedException {
+    var result =
+        post(
+            ADMIN_URL + "/query",
+            mapper.writeValueAsString(Map.of("query", sql)),
+            Map.of("accept", "application/json"));
+    return result.path("rows");
+  }
+
+  private static JsonNode post(String url, String body, Map<String, String> headers)
+      throws IOException, InterruptedException {
+    var builder =
+        HttpRequest.newBuilder(URI.create(url)).POST(HttpRequest.BodyPublishers.ofString(body));
+    if (!body.isEmpty()) {
+      builder.header("content-type", "application/json");
+    }
+    headers.forEach(builder::header);
+    var response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    if (response.statusCode() >= 300) {
+      throw new IOException("Request to " + url + " failed: " + response.body());
+    }
+    return response.body().isEmpty() ? mapper.nullNode() : mapper.readTree(response.body());
+  }
+
+  private static long percentile(List<Long> sorted, double percentile) {
+    if (sorted.isEmpty()) {
+      return 0;
+    }
+    return sorted.get((int) Math.ceil(percentile * sorted.size()) - 1);
+  }
+}
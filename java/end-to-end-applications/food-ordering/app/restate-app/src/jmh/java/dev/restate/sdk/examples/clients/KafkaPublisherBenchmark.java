@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.clients;
+
+import dev.restate.sdk.examples.types.Location;
+import dev.restate.sdk.examples.utils.GeoUtils;
+import dev.restate.serde.jackson.JacksonSerdes;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Records/sec of the driver update publishing path, against Kafka's in-memory MockProducer as a
+ * local stand-in for the broker. Compares the previous path (a Jackson serde created per call, JSON
+ * payload) with the current one (cached binary LocationCodec, bounded in-flight sends).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KafkaPublisherBenchmark {
+
+  // MockProducer keeps every record it gets, drop them regularly to keep the heap flat
+  private static final int CLEAR_EVERY = 10_000;
+
+  private MockProducer<String, byte[]> mockProducer;
+  private KafkaPublisher publisher;
+  private Location location;
+  private int sends;
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    mockProducer = new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+    publisher = new KafkaPublisher(mockProducer, 10_000);
+    location = GeoUtils.randomLocation();
+  }
+
+  @Benchmark
+  public void jsonSerdePerCall() {
+    publisher.sendDriverUpdate(
+        "driver-A", JacksonSerdes.of(Location.class).serialize(location).toByteArray());
+    clearRegularly();
+  }
+
+  @Benchmark
+  public void binaryCodec() {
+    publisher.sendDriverUpdate("driver-A", location);
+    clearRegularly();
+  }
+
+  private void clearRegularly() {
+    if (++sends % CLEAR_EVERY == 0) {
+      mockProducer.clear();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.clients;
+
+import com.sun.net.httpserver.HttpServer;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Requests/sec and latency percentiles (p99 in the SampleTime results) of the prepare call, against
+ * a local stub of the restaurant POS server that answers every request with 200.
+ *
+ * <p>Compares the previous client (a new HTTP client per order, String.format body, blocking send)
+ * with the shared client, called blocking and with a batch of requests in flight per thread.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class RestaurantClientBenchmark {
+
+  private static final int IN_FLIGHT_PER_THREAD = 16;
+
+  private HttpServer server;
+  private String endpoint;
+  private RestaurantClient sharedClient;
+
+  @Setup(Level.Trial)
+  public void startStubServer() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+        "/prepare",
+        exchange -> {
+          exchange.getRequestBody().readAllBytes();
+          exchange.sendResponseHeaders(200, -1);
+          exchange.close();
+        });
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    server.start();
+    endpoint = "http://localhost:" + server.getAddress().getPort();
+    sharedClient =
+        new RestaurantClient(
+            HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build(), endpoint);
+  }
+
+  @TearDown(Level.Trial)
+  public void stopStubServer() {
+    server.stop(0);
+  }
+
+  /** The previous implementation, a client per order. Closed after use to not leak threads. */
+  @Benchmark
+  public int perOrderClient() throws Exception {
+    try (var httpClient = HttpClient.newBuilder().build()) {
+      String requestBody = String.format("{\"cb\":\"%s\",\"orderId\":\"%s\"}", "prom_1abc", "o-1");
+      HttpRequest request =
+          HttpRequest.newBuilder()
+              .uri(URI.create(endpoint + "/prepare"))
+              .header("Content-Type", "application/json")
+              .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+              .build();
+      return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+  }
+
+  @Benchmark
+  public void sharedClient() throws Exception {
+    sharedClient.prepare("o-1", "prom_1abc");
+  }
+
+  /** Each operation is a batch of requests in flight at once, divide by the batch size. */
+  @Benchmark
+  @OperationsPerInvocation(IN_FLIGHT_PER_THREAD)
+  public void sharedClientAsync() {
+    var futures = new CompletableFuture<?>[IN_FLIGHT_PER_THREAD];
+    for (int i = 0; i < IN_FLIGHT_PER_THREAD; i++) {
+      futures[i] = sharedClient.prepareAsync("o-" + i, "prom_1abc");
+    }
+    CompletableFuture.allOf(futures).join();
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.restate.sdk.common.StateKey;
+import dev.restate.serde.TypeRef;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the state bytes that get written to the journal per queue operation, for a queue stored
+ * as one LinkedList value versus the segmented layout of DurableQueue. Every operation polls one
+ * entry and offers one entry, so the queue stays at the configured depth.
+ *
+ * <p>Both layouts run against an in-memory State that serializes every value it stores, like the
+ * Restate state does, and counts the bytes of every value that gets set. The segmented layout runs
+ * the actual DurableQueue offer and poll, including its reads of the head and the tail.
+ *
+ * <p>Besides the time per operation, the benchmark reports the bytesPerOp counter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DurableQueueBenchmark {
+
+  private static final StateKey<Queue<String>> QUEUE_LIST =
+      StateKey.of("queue-list", new TypeRef<>() {});
+
+  @Param({"10", "100", "1000", "10000"})
+  public int depth;
+
+  private InMemoryState listState;
+  private InMemoryState segmentedState;
+  private DurableQueue queue;
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class WrittenBytes {
+    public long bytes;
+    public long operations;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      bytes = 0;
+      operations = 0;
+    }
+
+    public double bytesPerOp() {
+      return operations == 0 ? 0 : (double) bytes / operations;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Queue<String> list = new LinkedList<>();
+    queue = new DurableQueue("queue");
+    listState = new InMemoryState();
+    segmentedState = new InMemoryState();
+    for (int i = 0; i < depth; i++) {
+      var entry = UUID.randomUUID().toString();
+      list.offer(entry);
+      queue.offer(segmentedState, entry);
+    }
+    listState.set(QUEUE_LIST, list);
+  }
+
+  /** The previous layout: read the whole queue, poll and offer, write the whole queue back. */
+  @Benchmark
+  public Object wholeListValue(WrittenBytes written) {
+    long before = listState.writtenBytes;
+    var list = listState.get(QUEUE_LIST).orElseThrow();
+    list.poll();
+    list.offer(UUID.randomUUID().toString());
+    listState.set(QUEUE_LIST, list);
+
+    written.bytes += listState.writtenBytes - before;
+    written.operations++;
+    return list;
+  }
+
+  /**
+   * DurableQueue: poll clears one entry and moves the head, offer writes one entry and the tail.
+   */
+  @Benchmark
+  public Object segmentedEntries(WrittenBytes written) {
+    long before = segmentedState.writtenBytes;
+    var polled = queue.poll(segmentedState);
+    queue.offer(segmentedState, UUID.randomUUID().toString());
+
+    written.bytes += segmentedState.writtenBytes - before;
+    written.operations++;
+    return polled;
+  }
+
+  /** Stores every value serialized with Jackson, and deserializes it again on every read. */
+  static class InMemoryState implements dev.restate.sdk.State {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Map<String, Map.Entry<byte[], Class<?>>> values = new HashMap<>();
+    long writtenBytes;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> get(StateKey<T> key) {
+      var value = values.get(key.name());
+      if (value == null) {
+        return Optional.empty();
+      }
+      try {
+        return Optional.of((T) MAPPER.readValue(value.getKey(), value.getValue()));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public <T> void set(StateKey<T> key, T value) {
+      try {
+        var bytes = MAPPER.writeValueAsBytes(value);
+        writtenBytes += bytes.length;
+        values.put(key.name(), Map.entry(bytes, value.getClass()));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public void clear(StateKey<?> key) {
+      values.remove(key.name());
+    }
+
+    @Override
+    public void clearAll() {
+      values.clear();
+    }
+
+    @Override
+    public Collection<String> getAllKeys() {
+      return values.keySet();
+    }
+  }
+}
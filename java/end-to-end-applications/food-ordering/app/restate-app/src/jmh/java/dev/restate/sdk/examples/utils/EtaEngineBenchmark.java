@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.utils;
+
+import dev.restate.sdk.examples.types.DeliveryInformation;
+import dev.restate.sdk.examples.types.Location;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** ETA computations per second, per cost model and per driver location update. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EtaEngineBenchmark {
+
+  @Param({"chebyshev", "equirectangular", "grid"})
+  public String costModel;
+
+  private TravelCostModel model;
+  private Location driverLocation;
+  private DeliveryInformation delivery;
+
+  @Setup
+  public void setup() throws IOException {
+    var chebyshev = new ChebyshevCostModel(GeoUtils.SPEED);
+    model =
+        switch (costModel) {
+          case "chebyshev" -> chebyshev;
+          case "equirectangular" -> new EquirectangularCostModel(GeoUtils.SPEED);
+          case "grid" ->
+              new GridTravelTimeCostModel(new StringReader(travelTimeTable()), chebyshev);
+          default -> throw new IllegalArgumentException(costModel);
+        };
+
+    driverLocation = GeoUtils.randomLocation();
+    var restaurantLocation = GeoUtils.randomLocation();
+    var customerLocation = GeoUtils.randomLocation();
+    delivery =
+        new DeliveryInformation(
+            "order",
+            "callback",
+            "restaurant",
+            restaurantLocation,
+            customerLocation,
+            eta(restaurantLocation, customerLocation),
+            false);
+  }
+
+  @Benchmark
+  public long singleEta() {
+    return eta(driverLocation, delivery.getCustomerLocation());
+  }
+
+  /**
+   * What DeliveryManager.handleDriverLocationUpdate did before: both legs recomputed on every
+   * update, each returned as a boxed Long.
+   */
+  @Benchmark
+  public Long deliveryEtaRecomputingStaticLeg() {
+    return boxedEta(driverLocation, delivery.getRestaurantLocation())
+        + boxedEta(delivery.getRestaurantLocation(), delivery.getCustomerLocation());
+  }
+
+  /** What EtaEngine.deliveryEtaMillis does now: one ETA plus the leg cached at delivery start. */
+  @Benchmark
+  public long deliveryEtaWithCachedStaticLeg() {
+    return eta(driverLocation, delivery.getRestaurantLocation())
+        + delivery.getRestaurantToCustomerEtaMillis();
+  }
+
+  private long eta(Location from, Location to) {
+    return model.travelMillis(from.getLon(), from.getLat(), to.getLon(), to.getLat());
+  }
+
+  private Long boxedEta(Location from, Location to) {
+    return eta(from, to);
+  }
+
+  // Travel times between all cells of the demo region (a 6x6 grid of cells), 1 minute per cell
+  private static String travelTimeTable() {
+    var table = new StringBuilder();
+    for (int fromX = -3; fromX <= 2; fromX++) {
+      for (int fromY = -3; fromY <= 2; fromY++) {
+        for (int toX = -3; toX <= 2; toX++) {
+          for (int toY = -3; toY <= 2; toY++) {
+            var cells = Math.max(Math.abs(toX - fromX), Math.abs(toY - fromY));
+            table.append(String.format("%d,%d,%d,%d,%d%n", fromX, fromY, toX, toY, cells * 60_000));
+          }
+        }
+      }
+    }
+    return table.toString();
+  }
+}
@@ -11,16 +11,23 @@
 
 package dev.restate.sdk.examples;
 
+import dev.restate.sdk.HandlerRunner;
 import dev.restate.sdk.endpoint.Endpoint;
 import dev.restate.sdk.http.vertx.RestateHttpServer;
+import java.util.concurrent.Executors;
 
 public class AppMain {
   public static void main(String[] args) {
     RestateHttpServer.listen(
-        Endpoint.bind(new OrderWorkflow())
+        // The run blocks of the order workflow wait for the HTTP calls to the payment provider and
+        // the restaurant. On virtual threads, these waits don't hold a platform thread per order.
+        Endpoint.bind(
+                new OrderWorkflow(),
+                HandlerRunner.Options.withExecutor(Executors.newVirtualThreadPerTaskExecutor()))
             .bind(new OrderStatusService())
             .bind(new DeliveryManager())
             .bind(new DriverDeliveryMatcher())
+            .bind(new DeliveryAssignment())
             .bind(new DriverDigitalTwin()));
   }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples;
+
+import dev.restate.sdk.Restate;
+import dev.restate.sdk.annotation.Handler;
+import dev.restate.sdk.annotation.VirtualObject;
+import dev.restate.sdk.common.StateKey;
+
+/**
+ * Makes sure a delivery gets exactly one driver in geo-sharded matching mode. Keyed by the id of
+ * the awakeable the DeliveryManager waits on.
+ *
+ * <p>A delivery waits in the matchers of several cells at once, so more than one of them might find
+ * a driver for it. Each matcher asks this object to assign its driver, and only the first one
+ * succeeds. The others keep their driver and drop the delivery from their queue.
+ */
+@VirtualObject
+public class DeliveryAssignment {
+
+  // Set while the delivery is waiting for a driver, cleared once it got one
+  private static final StateKey<Boolean> OPEN = StateKey.of("open", Boolean.class);
+
+  /** Gets called by the DeliveryManager before the delivery starts waiting in the matchers. */
+  @Handler
+  public void open() {
+    Restate.state().set(OPEN, true);
+  }
+
+  /**
+   * Assigns the driver to the delivery, if it has no driver yet. Returns whether the driver got
+   * assigned.
+   */
+  @Handler
+  public boolean assignDriver(String driverId) {
+    var state = Restate.state();
+    if (state.get(OPEN).isEmpty()) {
+      return false;
+    }
+    state.clear(OPEN);
+    Restate.awakeableHandle(Restate.key()).resolve(String.class, driverId);
+    return true;
+  }
+}
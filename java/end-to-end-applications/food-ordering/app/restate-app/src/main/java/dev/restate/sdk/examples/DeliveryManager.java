@@ -17,7 +17,9 @@ import dev.restate.sdk.annotation.VirtualObject;
 import dev.restate.sdk.common.StateKey;
 import dev.restate.sdk.common.TerminalException;
 import dev.restate.sdk.examples.types.*;
+import dev.restate.sdk.examples.utils.EtaEngine;
 import dev.restate.sdk.examples.utils.GeoUtils;
+import java.util.ArrayList;
 
 /**
  * Manages the delivery of the order to the customer. Keyed by the order ID (similar to the
@@ -52,17 +54,15 @@ public class DeliveryManager {
             request.getRestaurantId(),
             restaurantLocation,
             customerLocation,
+            EtaEngine.etaMillis(restaurantLocation, customerLocation),
             false);
     Restate.state().set(DELIVERY_INFO, deliveryInfo);
 
     // Acquire a driver
-    var driverAwakeable = Restate.awakeable(String.class);
-    Restate.virtualObjectHandle(DriverDeliveryMatcher.class, GeoUtils.DEMO_REGION)
-        .send(DriverDeliveryMatcher::requestDriverForDelivery, driverAwakeable.id());
-    // Wait until the driver pool service has located a driver
-    // This awakeable gets resolved either immediately when there is a pending delivery
-    // or later, when a new delivery comes in.
-    var driverId = driverAwakeable.await();
+    var driverId =
+        DriverDeliveryMatcher.GEO_SHARDED_MATCHING
+            ? acquireNearbyDriver(restaurantLocation)
+            : acquireRegionDriver();
 
     // Assign the driver to the job
     Restate.virtualObject(DriverDigitalTwin.class, driverId)
@@ -72,7 +72,46 @@ public class DeliveryManager {
 
     // Update the status of the order to "waiting for the driver"
     Restate.virtualObjectHandle(OrderStatusService.class, orderId)
-        .send(OrderStatusService::setStatus, StatusEnum.WAITING_FOR_DRIVER);
+        .send(OrderStatusService::update, StatusUpdate.status(StatusEnum.WAITING_FOR_DRIVER));
+  }
+
+  // Asks the matcher of the region for the next available driver.
+  private String acquireRegionDriver() {
+    var driverAwakeable = Restate.awakeable(String.class);
+    Restate.virtualObjectHandle(DriverDeliveryMatcher.class, GeoUtils.DEMO_REGION)
+        .send(DriverDeliveryMatcher::requestDriverForDelivery, driverAwakeable.id());
+    // Wait until the driver pool service has located a driver
+    // This awakeable gets resolved either immediately when there is a pending delivery
+    // or later, when a new delivery comes in.
+    return driverAwakeable.await();
+  }
+
+  // Geo-sharded mode: asks the matcher of the restaurant's cell for the nearest driver, then the
+  // ones of the neighbouring cells. The delivery waits in every cell that has no driver, and the
+  // DeliveryAssignment makes sure only one of them assigns a driver to it. Once it has a driver, it
+  // gets removed from the cells it waited in.
+  private String acquireNearbyDriver(Location restaurantLocation) {
+    var candidateCells = new ArrayList<String>();
+    candidateCells.add(GeoUtils.cellOf(restaurantLocation));
+    candidateCells.addAll(GeoUtils.neighbouringCellsOf(restaurantLocation));
+
+    var driverAwakeable = Restate.awakeable(String.class);
+    Restate.virtualObject(DeliveryAssignment.class, driverAwakeable.id()).open();
+    var request = new NearbyDeliveryRequest(driverAwakeable.id(), restaurantLocation);
+    var waitingInCells = new ArrayList<String>();
+    for (var cell : candidateCells) {
+      if (Restate.virtualObject(DriverDeliveryMatcher.class, cell).requestNearestDriver(request)) {
+        break;
+      }
+      waitingInCells.add(cell);
+    }
+    var driverId = driverAwakeable.await();
+
+    for (var cell : waitingInCells) {
+      Restate.virtualObjectHandle(DriverDeliveryMatcher.class, cell)
+          .send(DriverDeliveryMatcher::removeNearbyDelivery, driverAwakeable.id());
+    }
+    return driverId;
   }
 
   /**
@@ -96,7 +135,7 @@ public class DeliveryManager {
 
     // Update the status of the order to "in delivery"
     Restate.virtualObjectHandle(OrderStatusService.class, Restate.key())
-        .send(OrderStatusService::setStatus, StatusEnum.IN_DELIVERY);
+        .send(OrderStatusService::update, StatusUpdate.status(StatusEnum.IN_DELIVERY));
   }
 
   /**
@@ -137,16 +176,11 @@ public class DeliveryManager {
                     new TerminalException(
                         "Driver is doing a delivery but there is no ongoing delivery."));
 
-    // Parse the new location, and calculate the ETA of the delivery to the customer
-    var eta =
-        delivery.isOrderPickedUp()
-            ? GeoUtils.calculateEtaMillis(newLocation, delivery.getCustomerLocation())
-            : GeoUtils.calculateEtaMillis(newLocation, delivery.getRestaurantLocation())
-                + GeoUtils.calculateEtaMillis(
-                    delivery.getRestaurantLocation(), delivery.getCustomerLocation());
+    // Calculate the ETA of the delivery to the customer from the new location
+    var eta = EtaEngine.deliveryEtaMillis(delivery, newLocation);
 
     // Update the ETA of the order
     Restate.virtualObjectHandle(OrderStatusService.class, Restate.key())
-        .send(OrderStatusService::setETA, eta);
+        .send(OrderStatusService::update, StatusUpdate.eta(eta));
   }
 }
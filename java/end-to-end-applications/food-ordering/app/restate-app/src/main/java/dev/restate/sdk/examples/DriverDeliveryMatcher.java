@@ -12,29 +12,55 @@
 package dev.restate.sdk.examples;
 
 import dev.restate.sdk.Restate;
+import dev.restate.sdk.State;
 import dev.restate.sdk.annotation.Handler;
 import dev.restate.sdk.annotation.VirtualObject;
 import dev.restate.sdk.common.StateKey;
 import dev.restate.sdk.common.TerminalException;
-import dev.restate.serde.TypeRef;
-import java.util.LinkedList;
-import java.util.Queue;
+import dev.restate.sdk.examples.types.AvailableDriver;
+import dev.restate.sdk.examples.types.Location;
+import dev.restate.sdk.examples.types.NearbyDeliveryRequest;
+import dev.restate.sdk.examples.utils.DurableQueue;
+import dev.restate.sdk.examples.utils.GeoUtils;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Links available drivers to delivery requests Keyed by the region. Each region has a pool of
  * available drivers and orders waiting for a driver. This service is responsible for tracking and
  * matching the two.
+ *
+ * <p>When geo-sharded matching is enabled (DRIVER_MATCHING_MODE=geo-cells), the region is split
+ * into grid cells (see GeoUtils.cellOf) and each cell is backed by its own matcher object. Drivers
+ * and deliveries then get matched by proximity instead of FIFO, and the matching load gets spread
+ * over many keys instead of being serialized through the single region key.
  */
 @VirtualObject
 public class DriverDeliveryMatcher {
 
+  public static final boolean GEO_SHARDED_MATCHING =
+      "geo-cells".equals(System.getenv("DRIVER_MATCHING_MODE"));
+
   // Deliveries that are waiting for a driver to become available
-  private static final StateKey<Queue<String>> PENDING_DELIVERIES =
-      StateKey.of("pending-deliveries", new TypeRef<>() {});
+  private static final DurableQueue PENDING_DELIVERIES = new DurableQueue("pending-deliveries");
 
   // Drivers that are waiting for new delivery requests
-  private static final StateKey<Queue<String>> AVAILABLE_DRIVERS =
-      StateKey.of("available-drivers", new TypeRef<>() {});
+  private static final DurableQueue AVAILABLE_DRIVERS = new DurableQueue("available-drivers");
+
+  // Geo-sharded mode: every driver waiting in this cell has its own key, with the location the
+  // driver became available at, so a driver coming or going only writes its own key
+  private static final String NEARBY_DRIVER_PREFIX = "nearby-driver-";
+
+  // Geo-sharded mode: every delivery waiting in this cell has its own key, with its place in line,
+  // so a delivery that got a driver in another cell can be removed on its own
+  private static final String NEARBY_DELIVERY_PREFIX = "nearby-delivery-";
+  private static final StateKey<Long> NEARBY_DELIVERY_SEQUENCE =
+      StateKey.of("nearby-delivery-sequence", Long.TYPE);
 
   /**
    * Gets called when a new driver becomes available. Links the driver to the next delivery waiting
@@ -42,23 +68,16 @@ public class DriverDeliveryMatcher {
    */
   @Handler
   public void setDriverAvailable(String driverId) throws TerminalException {
-    var state = Restate.state();
-    var pendingDeliveries = state.get(PENDING_DELIVERIES).orElse(new LinkedList<>());
-
     // If there is a pending delivery, assign it to the driver
-    var nextDelivery = pendingDeliveries.poll();
-    if (nextDelivery != null) {
-      // Update the queue in state. Delivery was removed.
-      state.set(PENDING_DELIVERIES, pendingDeliveries);
+    var nextDelivery = PENDING_DELIVERIES.poll();
+    if (nextDelivery.isPresent()) {
       // Notify that delivery is ongoing
-      Restate.awakeableHandle(nextDelivery).resolve(String.class, driverId);
+      Restate.awakeableHandle(nextDelivery.get()).resolve(String.class, driverId);
       return;
     }
 
     // Otherwise remember driver as available
-    var availableDrivers = state.get(AVAILABLE_DRIVERS).orElse(new LinkedList<>());
-    availableDrivers.offer(driverId);
-    state.set(AVAILABLE_DRIVERS, availableDrivers);
+    AVAILABLE_DRIVERS.offer(driverId);
   }
 
   /**
@@ -67,22 +86,126 @@ public class DriverDeliveryMatcher {
    */
   @Handler
   public void requestDriverForDelivery(String deliveryCallbackId) throws TerminalException {
-    var state = Restate.state();
-    var availableDrivers = state.get(AVAILABLE_DRIVERS).orElse(new LinkedList<>());
-
     // If a driver is available, assign the delivery right away
-    var nextAvailableDriver = availableDrivers.poll();
-    if (nextAvailableDriver != null) {
-      // Remove driver from the pool
-      state.set(AVAILABLE_DRIVERS, availableDrivers);
+    var nextAvailableDriver = AVAILABLE_DRIVERS.poll();
+    if (nextAvailableDriver.isPresent()) {
       // Notify that delivery is ongoing
-      Restate.awakeableHandle(deliveryCallbackId).resolve(String.class, nextAvailableDriver);
+      Restate.awakeableHandle(deliveryCallbackId).resolve(String.class, nextAvailableDriver.get());
       return;
     }
 
     // otherwise store the delivery request until a new driver becomes available
-    var pendingDeliveries = state.get(PENDING_DELIVERIES).orElse(new LinkedList<>());
-    pendingDeliveries.offer(deliveryCallbackId);
-    state.set(PENDING_DELIVERIES, pendingDeliveries);
+    PENDING_DELIVERIES.offer(deliveryCallbackId);
+  }
+
+  /**
+   * Geo-sharded mode. Links the delivery to the closest driver in this cell. If there is none, the
+   * delivery waits in this cell until a driver becomes available here. Gets called by the
+   * DeliveryManager for the cell of the restaurant and its neighbouring cells, one after the other,
+   * so the delivery waits in all of them. Returns whether the delivery is done looking for a
+   * driver. Once it has one, the DeliveryManager removes it from the other cells with
+   * removeNearbyDelivery.
+   *
+   * <p>Drivers only ever wait in their own cell, so the driver and the delivery always meet in the
+   * matcher of one cell, whichever of them comes first. That makes the hand-off atomic.
+   */
+  @Handler
+  public boolean requestNearestDriver(NearbyDeliveryRequest request) throws TerminalException {
+    var state = Restate.state();
+    var nearestDriver = nearestTo(nearbyDrivers(state), request.getPickupLocation());
+    if (nearestDriver.isEmpty()) {
+      long sequence = state.get(NEARBY_DELIVERY_SEQUENCE).orElse(0L);
+      state.set(nearbyDeliveryKey(request.getCallbackId()), sequence);
+      state.set(NEARBY_DELIVERY_SEQUENCE, sequence + 1);
+      return false;
+    }
+
+    // If the delivery already got a driver from another cell, this driver stays available here
+    if (assignDriver(request.getCallbackId(), nearestDriver.get())) {
+      state.clear(nearbyDriverKey(nearestDriver.get()));
+    }
+    return true;
+  }
+
+  /**
+   * Geo-sharded mode. Links the driver to the delivery that has been waiting the longest in this
+   * cell. If there is none, the driver is added to the pool of available drivers of this cell.
+   */
+  @Handler
+  public void setNearbyDriverAvailable(AvailableDriver driver) throws TerminalException {
+    var state = Restate.state();
+    for (var deliveryCallbackId : nearbyDeliveriesInLine(state)) {
+      state.clear(nearbyDeliveryKey(deliveryCallbackId));
+      // Only fails if the delivery got a driver in another cell and its removal is still on the way
+      if (assignDriver(deliveryCallbackId, driver.getDriverId())) {
+        return;
+      }
+    }
+
+    // No deliveries are waiting anymore, so the line can start over
+    state.clear(NEARBY_DELIVERY_SEQUENCE);
+    state.set(nearbyDriverKey(driver.getDriverId()), driver.getLocation());
+  }
+
+  /**
+   * Geo-sharded mode. Removes a delivery that got a driver in another cell. Gets sent by the
+   * DeliveryManager to the cells the delivery waited in, once it has a driver.
+   */
+  @Handler
+  public void removeNearbyDelivery(String deliveryCallbackId) {
+    Restate.state().clear(nearbyDeliveryKey(deliveryCallbackId));
+  }
+
+  private static boolean assignDriver(String deliveryCallbackId, String driverId) {
+    return Restate.virtualObject(DeliveryAssignment.class, deliveryCallbackId)
+        .assignDriver(driverId);
+  }
+
+  private static Map<String, Location> nearbyDrivers(State state) {
+    var drivers = new LinkedHashMap<String, Location>();
+    for (var key : state.getAllKeys()) {
+      if (key.startsWith(NEARBY_DRIVER_PREFIX)) {
+        var driverId = key.substring(NEARBY_DRIVER_PREFIX.length());
+        state.get(nearbyDriverKey(driverId)).ifPresent(location -> drivers.put(driverId, location));
+      }
+    }
+    return drivers;
+  }
+
+  // The deliveries waiting in this cell, the one that has been waiting the longest first
+  private static List<String> nearbyDeliveriesInLine(State state) {
+    var sequences = new HashMap<String, Long>();
+    for (var key : state.getAllKeys()) {
+      if (key.startsWith(NEARBY_DELIVERY_PREFIX)) {
+        var deliveryCallbackId = key.substring(NEARBY_DELIVERY_PREFIX.length());
+        state
+            .get(nearbyDeliveryKey(deliveryCallbackId))
+            .ifPresent(sequence -> sequences.put(deliveryCallbackId, sequence));
+      }
+    }
+    var deliveries = new ArrayList<>(sequences.keySet());
+    deliveries.sort(Comparator.comparing(sequences::get));
+    return deliveries;
+  }
+
+  private static StateKey<Location> nearbyDriverKey(String driverId) {
+    return StateKey.of(NEARBY_DRIVER_PREFIX + driverId, Location.class);
+  }
+
+  private static StateKey<Long> nearbyDeliveryKey(String deliveryCallbackId) {
+    return StateKey.of(NEARBY_DELIVERY_PREFIX + deliveryCallbackId, Long.TYPE);
+  }
+
+  private static Optional<String> nearestTo(Map<String, Location> drivers, Location location) {
+    String nearestDriver = null;
+    double nearestDistance = Double.MAX_VALUE;
+    for (var driver : drivers.entrySet()) {
+      double distance = GeoUtils.squaredDistance(driver.getValue(), location);
+      if (distance < nearestDistance) {
+        nearestDistance = distance;
+        nearestDriver = driver.getKey();
+      }
+    }
+    return Optional.ofNullable(nearestDriver);
   }
 }
@@ -12,14 +12,22 @@
 package dev.restate.sdk.examples;
 
 import dev.restate.sdk.Restate;
+import dev.restate.sdk.annotation.Accept;
 import dev.restate.sdk.annotation.Handler;
+import dev.restate.sdk.annotation.Raw;
+import dev.restate.sdk.annotation.Shared;
 import dev.restate.sdk.annotation.VirtualObject;
 import dev.restate.sdk.common.StateKey;
 import dev.restate.sdk.common.TerminalException;
 import dev.restate.sdk.examples.types.AssignDeliveryRequest;
 import dev.restate.sdk.examples.types.AssignedDelivery;
+import dev.restate.sdk.examples.types.AvailableDriver;
 import dev.restate.sdk.examples.types.DriverStatus;
 import dev.restate.sdk.examples.types.Location;
+import dev.restate.sdk.examples.types.LocationUpdateStats;
+import dev.restate.sdk.examples.utils.GeoUtils;
+import dev.restate.sdk.examples.utils.LocationCodec;
+import dev.restate.sdk.examples.utils.LocationUpdateCoalescing;
 import java.util.Optional;
 
 /**
@@ -42,6 +50,15 @@ public class DriverDigitalTwin {
   private static final StateKey<Location> DRIVER_LOCATION =
       StateKey.of("driver-location", Location.class);
 
+  // Last forwarded location and the number of forwarded and dropped updates, if coalescing is
+  // enabled. Kept in one value so every location update writes it at most once.
+  private static final StateKey<LocationUpdateStats> LOCATION_UPDATE_STATS =
+      StateKey.of("location-update-stats", LocationUpdateStats.class);
+
+  // Awakeable of the driver's mobile app, waiting to be notified of the next assigned delivery
+  private static final StateKey<String> ASSIGNMENT_CALLBACK =
+      StateKey.of("assignment-callback", String.class);
+
   /**
    * When the driver starts his work day or finishes a delivery, his application
    * (DriverMobileAppSimulator) calls this method.
@@ -51,10 +68,26 @@ public class DriverDigitalTwin {
     expectStatus(DriverStatus.IDLE);
 
     Restate.state().set(DRIVER_STATUS, DriverStatus.WAITING_FOR_WORK);
+    if (DriverDeliveryMatcher.GEO_SHARDED_MATCHING) {
+      setNearbyDriverAvailable();
+      return;
+    }
     Restate.virtualObjectHandle(DriverDeliveryMatcher.class, region)
         .send(DriverDeliveryMatcher::setDriverAvailable, Restate.key());
   }
 
+  // Geo-sharded mode: the driver picks up a delivery waiting in its cell, or waits there.
+  // Deliveries wait in the cells around the restaurant, so this also covers the nearby ones.
+  private void setNearbyDriverAvailable() {
+    // Location updates arrive via Kafka and might not have been processed yet,
+    // in that case the driver joins the cell in the center of the region.
+    var location = Restate.state().get(DRIVER_LOCATION).orElse(new Location(0, 0));
+    Restate.virtualObjectHandle(DriverDeliveryMatcher.class, GeoUtils.cellOf(location))
+        .send(
+            DriverDeliveryMatcher::setNearbyDriverAvailable,
+            new AvailableDriver(Restate.key(), location));
+  }
+
   /**
    * Gets called by the delivery manager when this driver was assigned to do the delivery. Updates
    * the status of the digital driver twin, and notifies the delivery service of its current
@@ -66,15 +99,25 @@ public class DriverDigitalTwin {
 
     var state = Restate.state();
     // Update the status and assigned delivery information of the driver
-    state.set(DRIVER_STATUS, DriverStatus.DELIVERING);
-    state.set(
-        ASSIGNED_DELIVERY,
+    var assignedDelivery =
         new AssignedDelivery(
             Restate.key(),
             request.getOrderId(),
             request.getRestaurantId(),
             request.getRestaurantLocation(),
-            request.getCustomerLocation()));
+            request.getCustomerLocation());
+    state.set(DRIVER_STATUS, DriverStatus.DELIVERING);
+    state.set(ASSIGNED_DELIVERY, assignedDelivery);
+    resetLocationCoalescing();
+
+    // Push the delivery to the driver's mobile app, if it is waiting for work
+    state
+        .get(ASSIGNMENT_CALLBACK)
+        .ifPresent(
+            callbackId -> {
+              state.clear(ASSIGNMENT_CALLBACK);
+              Restate.awakeableHandle(callbackId).resolve(AssignedDelivery.class, assignedDelivery);
+            });
 
     // Notify current location to the delivery service
     state
@@ -103,6 +146,8 @@ public class DriverDigitalTwin {
                         "Driver is in status DELIVERING but there is no current delivery set."));
     currentDelivery.notifyPickup();
     state.set(ASSIGNED_DELIVERY, currentDelivery);
+    // The ETA now only depends on the way to the customer, so forward the next location right away
+    resetLocationCoalescing();
 
     // Update the status of the delivery in the delivery manager
     Restate.virtualObjectHandle(DeliveryManager.class, currentDelivery.getOrderId())
@@ -134,30 +179,107 @@ public class DriverDigitalTwin {
     state.set(DRIVER_STATUS, DriverStatus.IDLE);
   }
 
-  /** Gets called by the driver's mobile app when he has moved to a new location. */
+  /**
+   * Gets called by the driver's mobile app when he has moved to a new location. The event is
+   * consumed from the driver-updates Kafka topic and carries the location in the binary encoding of
+   * LocationCodec.
+   */
   @Handler
-  public void handleDriverLocationUpdateEvent(Location location) {
+  public void handleDriverLocationUpdateEvent(@Accept("*/*") @Raw byte[] event) {
+    var location = LocationCodec.decode(event);
+    var state = Restate.state();
     // Update the location of the driver
-    Restate.state().set(DRIVER_LOCATION, location);
+    state.set(DRIVER_LOCATION, location);
 
     // Update the location of the delivery, if there is one
-    Optional<AssignedDelivery> assignedDelivery = Restate.state().get(ASSIGNED_DELIVERY);
-    if (assignedDelivery.isPresent()) {
+    Optional<AssignedDelivery> assignedDelivery = state.get(ASSIGNED_DELIVERY);
+    if (assignedDelivery.isEmpty()) {
+      return;
+    }
+
+    if (!LocationUpdateCoalescing.ENABLED) {
       Restate.virtualObjectHandle(DeliveryManager.class, assignedDelivery.get().getOrderId())
           .send(DeliveryManager::handleDriverLocationUpdate, location);
+      return;
+    }
+
+    // With coalescing enabled, only forward the update if the driver moved enough or if the
+    // last forwarded update is too old. This saves the ETA recomputation and status update.
+    // The driver app stamps the update with the time it took the location, only updates from
+    // older app versions need a durable time read.
+    var stats = state.get(LOCATION_UPDATE_STATS).orElse(LocationUpdateStats.empty());
+    long now =
+        LocationCodec.timestampOf(event)
+            .orElseGet(() -> Restate.run("now", Long.class, System::currentTimeMillis));
+    if (!LocationUpdateCoalescing.shouldForward(
+        stats.getLastForwardedLocation(), stats.getLastForwardedAt(), location, now)) {
+      state.set(LOCATION_UPDATE_STATS, stats.withDropped());
+      return;
     }
+
+    state.set(LOCATION_UPDATE_STATS, stats.withForwarded(location, now));
+    Restate.virtualObjectHandle(DeliveryManager.class, assignedDelivery.get().getOrderId())
+        .send(DeliveryManager::handleDriverLocationUpdate, location);
   }
 
   /**
-   * Returns Empty if no delivery was assigned, or the delivery information if a delivery was
-   * assigned. Gets polled by the driver's mobile app at regular intervals to check if a delivery
-   * got assigned to him.
+   * Returns how many location updates were forwarded to the delivery manager and dropped. Only
+   * tracked if coalescing is enabled.
+   */
+  @Shared
+  public LocationUpdateStats getLocationUpdateStats() {
+    return Restate.state().get(LOCATION_UPDATE_STATS).orElse(LocationUpdateStats.empty());
+  }
+
+  /**
+   * Gets called by the driver's mobile app when it is waiting for work. The app gets notified via
+   * the awakeable as soon as a delivery gets assigned to the driver, so it does not need to poll.
+   * If a delivery was already assigned, the awakeable gets resolved right away.
    */
   @Handler
+  public void notifyOnDeliveryAssignment(String callbackId) {
+    var state = Restate.state();
+    var assignedDelivery = state.get(ASSIGNED_DELIVERY);
+    if (assignedDelivery.isPresent()) {
+      Restate.awakeableHandle(callbackId).resolve(AssignedDelivery.class, assignedDelivery.get());
+      return;
+    }
+    state.set(ASSIGNMENT_CALLBACK, callbackId);
+  }
+
+  /**
+   * Waits until a delivery is assigned to the driver, and returns it. For apps that talk to the
+   * digital twin through the ingress and can't create awakeables themselves; the waiting invocation
+   * is suspended, so it costs nothing until the delivery gets assigned.
+   */
+  @Shared
+  public AssignedDelivery awaitDeliveryAssignment() {
+    var assignment = Restate.awakeable(AssignedDelivery.class);
+    Restate.virtualObjectHandle(DriverDigitalTwin.class, Restate.key())
+        .send(DriverDigitalTwin::notifyOnDeliveryAssignment, assignment.id());
+    return assignment.await();
+  }
+
+  /**
+   * Returns Empty if no delivery was assigned, or the delivery information if a delivery was
+   * assigned.
+   */
+  @Shared
   public Optional<AssignedDelivery> getAssignedDelivery() {
     return Restate.state().get(ASSIGNED_DELIVERY);
   }
 
+  // Makes sure the next location update gets forwarded to the delivery manager
+  private void resetLocationCoalescing() {
+    if (!LocationUpdateCoalescing.ENABLED) {
+      return;
+    }
+    var state = Restate.state();
+    state
+        .get(LOCATION_UPDATE_STATS)
+        .ifPresent(stats -> state.set(LOCATION_UPDATE_STATS, stats.withoutLastForwarded()));
+  }
+
   // Utility function to check if the driver is in the expected state
   // If the driver is in a different state, a terminal exception is thrown that stops any retries
   // from taking place.
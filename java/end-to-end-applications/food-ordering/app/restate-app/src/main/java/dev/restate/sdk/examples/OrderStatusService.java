@@ -13,10 +13,16 @@ package dev.restate.sdk.examples;
 
 import dev.restate.sdk.Restate;
 import dev.restate.sdk.annotation.Handler;
+import dev.restate.sdk.annotation.Shared;
 import dev.restate.sdk.annotation.VirtualObject;
 import dev.restate.sdk.common.StateKey;
 import dev.restate.sdk.common.TerminalException;
 import dev.restate.sdk.examples.types.StatusEnum;
+import dev.restate.sdk.examples.types.StatusSubscription;
+import dev.restate.sdk.examples.types.StatusUpdate;
+import dev.restate.serde.TypeRef;
+import java.util.ArrayList;
+import java.util.List;
 
 @VirtualObject
 public class OrderStatusService {
@@ -25,6 +31,10 @@ public class OrderStatusService {
       StateKey.of("order-status", StatusEnum.class);
   private static final StateKey<Long> ORDER_ETA = StateKey.of("order-eta", Long.TYPE);
 
+  // Awakeables waiting for the next status change of the order
+  private static final StateKey<List<String>> STATUS_SUBSCRIBERS =
+      StateKey.of("status-subscribers", new TypeRef<>() {});
+
   public static class OrderStatus {
     private final StatusEnum status;
     private final long eta;
@@ -43,8 +53,14 @@ public class OrderStatusService {
     }
   }
 
-  /** Gets called by the webUI frontend to display the status of an order. */
-  @Handler
+  /**
+   * Gets called by the webUI frontend to display the status of an order. Shared, so reads don't
+   * queue up behind status and ETA updates of the same order.
+   *
+   * <p>There is no cache in front of this: the state of the order arrives together with the
+   * invocation, so reading it costs no extra round trip, and a cache would only add staleness.
+   */
+  @Shared
   public OrderStatus get() throws TerminalException {
     var state = Restate.state();
     var status = state.get(ORDER_STATUS).orElse(StatusEnum.NEW);
@@ -52,9 +68,59 @@ public class OrderStatusService {
     return new OrderStatus(status, eta);
   }
 
+  /**
+   * Waits until the status of the order differs from the given one, and returns the new status.
+   * Returns right away if it already differs. Lets clients follow an order without polling.
+   */
+  @Shared
+  public StatusEnum awaitStatusChange(StatusEnum lastSeenStatus) throws TerminalException {
+    var statusChange = Restate.awakeable(StatusEnum.class);
+    Restate.virtualObjectHandle(OrderStatusService.class, Restate.key())
+        .send(
+            OrderStatusService::subscribeToStatusChange,
+            new StatusSubscription(lastSeenStatus, statusChange.id()));
+    return statusChange.await();
+  }
+
+  /** Resolves the awakeable of the subscription on the next status change of the order. */
+  @Handler
+  public void subscribeToStatusChange(StatusSubscription subscription) throws TerminalException {
+    var state = Restate.state();
+    var status = state.get(ORDER_STATUS).orElse(StatusEnum.NEW);
+    if (status != subscription.getLastSeenStatus()) {
+      Restate.awakeableHandle(subscription.getCallbackId()).resolve(StatusEnum.class, status);
+      return;
+    }
+    var subscribers = state.get(STATUS_SUBSCRIBERS).orElse(new ArrayList<>());
+    subscribers.add(subscription.getCallbackId());
+    state.set(STATUS_SUBSCRIBERS, subscribers);
+  }
+
+  /** Updates the status and/or the ETA of the order in a single invocation. */
+  @Handler
+  public void update(StatusUpdate update) throws TerminalException {
+    var state = Restate.state();
+    if (update.getStatus() != null) {
+      setStatus(update.getStatus());
+    }
+    if (update.getEta() != null) {
+      state.set(ORDER_ETA, update.getEta());
+    }
+  }
+
   @Handler
   public void setStatus(StatusEnum statusEnum) throws TerminalException {
-    Restate.state().set(ORDER_STATUS, statusEnum);
+    var state = Restate.state();
+    state.set(ORDER_STATUS, statusEnum);
+
+    // Notify the clients waiting for a status change
+    var subscribers = state.get(STATUS_SUBSCRIBERS);
+    if (subscribers.isPresent()) {
+      state.clear(STATUS_SUBSCRIBERS);
+      for (var callbackId : subscribers.get()) {
+        Restate.awakeableHandle(callbackId).resolve(StatusEnum.class, statusEnum);
+      }
+    }
   }
 
   @Handler
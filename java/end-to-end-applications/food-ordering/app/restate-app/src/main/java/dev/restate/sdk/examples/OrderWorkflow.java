@@ -11,6 +11,7 @@
 
 package dev.restate.sdk.examples;
 
+import dev.restate.sdk.DurableFuture;
 import dev.restate.sdk.Restate;
 import dev.restate.sdk.annotation.Handler;
 import dev.restate.sdk.annotation.Service;
@@ -20,6 +21,7 @@ import dev.restate.sdk.examples.clients.RestaurantClient;
 import dev.restate.sdk.examples.types.DeliveryRequest;
 import dev.restate.sdk.examples.types.OrderRequest;
 import dev.restate.sdk.examples.types.StatusEnum;
+import dev.restate.sdk.examples.types.StatusUpdate;
 import java.time.Duration;
 
 /**
@@ -32,14 +34,23 @@ public class OrderWorkflow {
   private final RestaurantClient restaurant = RestaurantClient.get();
   private final PaymentClient paymentClnt = PaymentClient.get();
 
+  // Set ORDER_WORKFLOW_MODE=pipelined to run independent steps of an order concurrently
+  public static final boolean PIPELINED = "pipelined".equals(System.getenv("ORDER_WORKFLOW_MODE"));
+
   @Handler
   public void create(OrderRequest order) throws TerminalException {
+    if (PIPELINED) {
+      createPipelined(order);
+      return;
+    }
     String id = order.getOrderId();
 
-    var orderStatusService = Restate.virtualObject(OrderStatusService.class, id);
+    // Status updates are one-way sends: the workflow does not need to wait for them, and Restate
+    // delivers them to the order status service in the order in which they were sent.
+    var orderStatusService = Restate.virtualObjectHandle(OrderStatusService.class, id);
 
     // 1. Set status
-    orderStatusService.setStatus(StatusEnum.CREATED);
+    orderStatusService.send(OrderStatusService::update, StatusUpdate.status(StatusEnum.CREATED));
 
     // 2. Handle payment
     String token = Restate.random().nextUUID().toString();
@@ -50,12 +61,12 @@ public class OrderWorkflow {
             () -> paymentClnt.charge(id, token, order.getTotalCost()));
 
     if (!paid) {
-      orderStatusService.setStatus(StatusEnum.REJECTED);
+      orderStatusService.send(OrderStatusService::update, StatusUpdate.status(StatusEnum.REJECTED));
       return;
     }
 
     // 3. Schedule preparation
-    orderStatusService.setStatus(StatusEnum.SCHEDULED);
+    orderStatusService.send(OrderStatusService::update, StatusUpdate.status(StatusEnum.SCHEDULED));
 
     Restate.sleep(Duration.ofMillis(order.getDeliveryDelay()));
 
@@ -63,9 +74,11 @@ public class OrderWorkflow {
     var preparationFuture = Restate.awakeable(Void.class);
     Restate.run("notify restaurant", () -> restaurant.prepare(id, preparationFuture.id()));
 
-    orderStatusService.setStatus(StatusEnum.IN_PREPARATION);
+    orderStatusService.send(
+        OrderStatusService::update, StatusUpdate.status(StatusEnum.IN_PREPARATION));
     preparationFuture.await();
-    orderStatusService.setStatus(StatusEnum.SCHEDULING_DELIVERY);
+    orderStatusService.send(
+        OrderStatusService::update, StatusUpdate.status(StatusEnum.SCHEDULING_DELIVERY));
 
     // 5. Find a driver and start delivery
     var deliveryAwakeable = Restate.awakeable(Void.class);
@@ -75,6 +88,55 @@ public class OrderWorkflow {
             DeliveryManager::start,
             new DeliveryRequest(order.getRestaurantId(), deliveryAwakeable.id()));
     deliveryAwakeable.await();
-    orderStatusService.setStatus(StatusEnum.DELIVERED);
+    orderStatusService.send(OrderStatusService::update, StatusUpdate.status(StatusEnum.DELIVERED));
+  }
+
+  /**
+   * Same steps as the sequential workflow, but steps that don't depend on each other are started
+   * together and awaited together: the payment runs while the delivery delay passes, and the
+   * restaurant notification and the preparation are awaited as one. The critical path becomes
+   * max(payment, delay) + preparation + delivery, instead of their sum.
+   */
+  private void createPipelined(OrderRequest order) throws TerminalException {
+    String id = order.getOrderId();
+    var orderStatusService = Restate.virtualObjectHandle(OrderStatusService.class, id);
+    orderStatusService.send(OrderStatusService::update, StatusUpdate.status(StatusEnum.CREATED));
+
+    // Payment and delivery delay in parallel. The order is only prepared if the payment succeeded,
+    // a rejected order returns without waiting for the timer.
+    String token = Restate.random().nextUUID().toString();
+    var payment =
+        Restate.runAsync(
+            "process payment",
+            Boolean.TYPE,
+            () -> paymentClnt.charge(id, token, order.getTotalCost()));
+    var deliveryDelay =
+        Restate.timer("delivery delay", Duration.ofMillis(order.getDeliveryDelay()));
+
+    if (!payment.await()) {
+      orderStatusService.send(OrderStatusService::update, StatusUpdate.status(StatusEnum.REJECTED));
+      return;
+    }
+    orderStatusService.send(OrderStatusService::update, StatusUpdate.status(StatusEnum.SCHEDULED));
+    deliveryDelay.await();
+
+    // The restaurant notification and the preparation are awaited together. If the notification
+    // fails, this fails right away instead of waiting for a preparation that never started.
+    var preparationFuture = Restate.awakeable(Void.class);
+    var notified =
+        Restate.runAsync("notify restaurant", () -> restaurant.prepare(id, preparationFuture.id()));
+    orderStatusService.send(
+        OrderStatusService::update, StatusUpdate.status(StatusEnum.IN_PREPARATION));
+    DurableFuture.all(notified, preparationFuture).await();
+    orderStatusService.send(
+        OrderStatusService::update, StatusUpdate.status(StatusEnum.SCHEDULING_DELIVERY));
+
+    var deliveryAwakeable = Restate.awakeable(Void.class);
+    Restate.virtualObjectHandle(DeliveryManager.class, id)
+        .send(
+            DeliveryManager::start,
+            new DeliveryRequest(order.getRestaurantId(), deliveryAwakeable.id()));
+    deliveryAwakeable.await();
+    orderStatusService.send(OrderStatusService::update, StatusUpdate.status(StatusEnum.DELIVERED));
   }
 }
@@ -11,24 +11,63 @@
 
 package dev.restate.sdk.examples.clients;
 
+import dev.restate.sdk.examples.types.Location;
+import dev.restate.sdk.examples.types.PublisherStats;
+import dev.restate.sdk.examples.utils.LocationCodec;
 import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
+/**
+ * Publishes driver location updates to Kafka.
+ *
+ * <p>Sends are asynchronous and batched by the Kafka producer (see KAFKA_LINGER_MS,
+ * KAFKA_BATCH_SIZE and KAFKA_COMPRESSION_TYPE). At most KAFKA_MAX_IN_FLIGHT_SENDS records can be
+ * unacknowledged at a time; beyond that, senders wait until the broker catches up, for at most
+ * KAFKA_SEND_TIMEOUT_MS. If the broker doesn't catch up in time, the update gets dropped: the next
+ * location update of the driver supersedes it anyway.
+ *
+ * <p>The acknowledged, failed and dropped updates and the backpressure waits are logged every
+ * KAFKA_STATS_LOG_EVERY sends, and returned by getStats.
+ */
 public class KafkaPublisher {
+  private static final Logger logger = LogManager.getLogger(KafkaPublisher.class);
 
   public static final String KAFKA_BOOTSTRAP_SERVERS =
       System.getenv("KAFKA_BOOTSTRAP_SERVERS") != null
           ? System.getenv("KAFKA_BOOTSTRAP_SERVERS")
           : "127.0.0.1:9092";
 
-  private final KafkaProducer<String, byte[]> producer;
+  private static final String DRIVER_UPDATES_TOPIC = "driver-updates";
+  private static final long SEND_TIMEOUT_MS = envInt("KAFKA_SEND_TIMEOUT_MS", 5000);
+  private static final long STATS_LOG_EVERY = envInt("KAFKA_STATS_LOG_EVERY", 10_000);
+
+  private final Producer<String, byte[]> producer;
+  private final int maxInFlightSends;
+  private final Semaphore inFlightSends;
+  private final AtomicLong sends = new AtomicLong();
+  private final AtomicLong acknowledged = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong backpressureWaits = new AtomicLong();
 
   public KafkaPublisher() {
-    this.producer = new KafkaProducer<>(properties());
+    this(new KafkaProducer<>(properties()), envInt("KAFKA_MAX_IN_FLIGHT_SENDS", 10_000));
+  }
+
+  public KafkaPublisher(Producer<String, byte[]> producer, int maxInFlightSends) {
+    this.producer = producer;
+    this.maxInFlightSends = maxInFlightSends;
+    this.inFlightSends = new Semaphore(maxInFlightSends);
   }
 
   public static Properties properties() {
@@ -38,10 +77,72 @@ public class KafkaPublisher {
         ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
     properties.setProperty(
         ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+    properties.setProperty(ProducerConfig.LINGER_MS_CONFIG, envOrDefault("KAFKA_LINGER_MS", "5"));
+    properties.setProperty(
+        ProducerConfig.BATCH_SIZE_CONFIG, envOrDefault("KAFKA_BATCH_SIZE", "65536"));
+    properties.setProperty(
+        ProducerConfig.COMPRESSION_TYPE_CONFIG, envOrDefault("KAFKA_COMPRESSION_TYPE", "lz4"));
     return properties;
   }
 
+  public void sendDriverUpdate(String key, Location location) {
+    sendDriverUpdate(key, LocationCodec.encode(location));
+  }
+
   public void sendDriverUpdate(String key, byte[] value) {
-    producer.send(new ProducerRecord<>("driver-updates", key, value));
+    if (sends.incrementAndGet() % STATS_LOG_EVERY == 0) {
+      logger.info("Driver update publisher: " + getStats());
+    }
+    if (!inFlightSends.tryAcquire()) {
+      backpressureWaits.incrementAndGet();
+      if (!acquireWithTimeout()) {
+        dropped.incrementAndGet();
+        return;
+      }
+    }
+
+    try {
+      producer.send(
+          new ProducerRecord<>(DRIVER_UPDATES_TOPIC, key, value),
+          (metadata, exception) -> {
+            inFlightSends.release();
+            if (exception == null) {
+              acknowledged.incrementAndGet();
+            } else {
+              failed.incrementAndGet();
+            }
+          });
+    } catch (RuntimeException e) {
+      // The callback only gets called if the record made it into the producer
+      inFlightSends.release();
+      failed.incrementAndGet();
+      throw e;
+    }
+  }
+
+  public PublisherStats getStats() {
+    return new PublisherStats(
+        acknowledged.get(),
+        failed.get(),
+        dropped.get(),
+        backpressureWaits.get(),
+        maxInFlightSends - inFlightSends.availablePermits());
+  }
+
+  private boolean acquireWithTimeout() {
+    try {
+      return inFlightSends.tryAcquire(SEND_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static String envOrDefault(String name, String defaultValue) {
+    return System.getenv(name) != null ? System.getenv(name) : defaultValue;
+  }
+
+  private static int envInt(String name, int defaultValue) {
+    return Integer.parseInt(envOrDefault(name, String.valueOf(defaultValue)));
   }
 }
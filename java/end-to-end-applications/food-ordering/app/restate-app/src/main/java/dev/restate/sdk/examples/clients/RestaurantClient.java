@@ -11,13 +11,27 @@
 
 package dev.restate.sdk.examples.clients;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.restate.sdk.common.TerminalException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+/**
+ * Client for the restaurant POS server.
+ *
+ * <p>All instances share one long-lived HTTP client, so connections are pooled and reused across
+ * orders, and HTTP/2 multiplexes concurrent requests over the same connection when the server
+ * supports it. The size of the HTTP/1.1 connection pool can be set with
+ * RESTAURANT_CONNECTION_POOL_SIZE (unbounded by default).
+ */
 public class RestaurantClient {
 
   public static final String RESTAURANT_ENDPOINT =
@@ -25,34 +39,86 @@ public class RestaurantClient {
           ? System.getenv("RESTAURANT_ENDPOINT")
           : "http://localhost:5050";
 
+  private static final HttpClient SHARED_HTTP_CLIENT = createHttpClient();
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
   private final HttpClient httpClient;
+  private final URI prepareUri;
 
-  private RestaurantClient() {
-    httpClient = HttpClient.newBuilder().build();
+  RestaurantClient(HttpClient httpClient, String endpoint) {
+    this.httpClient = httpClient;
+    this.prepareUri = URI.create(endpoint + "/prepare");
   }
 
   public static RestaurantClient get() {
-    return new RestaurantClient();
+    return new RestaurantClient(SHARED_HTTP_CLIENT, RESTAURANT_ENDPOINT);
   }
 
+  /**
+   * Sends the prepare request and waits for the response. Restate.run takes a blocking closure, so
+   * the order workflow uses this one, and runs on virtual threads to not hold a platform thread
+   * while the request is in flight.
+   */
   public void prepare(String orderId, String callbackId) throws IOException, InterruptedException {
-    this.call(orderId, callbackId, "/prepare");
+    try {
+      prepareAsync(orderId, callbackId).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof IOException ioException) {
+        throw ioException;
+      }
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw e;
+    }
   }
 
-  private void call(String orderId, String callbackId, String method)
-      throws IOException, InterruptedException {
-    URI uri = URI.create(RESTAURANT_ENDPOINT + method);
-    String requestBody = String.format("{\"cb\":\"%s\",\"orderId\":\"%s\"}", callbackId, orderId);
+  /**
+   * Sends the prepare request without blocking the calling thread while it is in flight. For
+   * callers outside of a Restate handler, like the benchmark of the client.
+   */
+  public CompletableFuture<Void> prepareAsync(String orderId, String callbackId) {
     HttpRequest request =
         HttpRequest.newBuilder()
-            .uri(uri)
+            .uri(prepareUri)
             .header("Content-Type", "application/json")
-            .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+            .POST(HttpRequest.BodyPublishers.ofByteArray(encodeBody(orderId, callbackId)))
             .build();
-    HttpResponse<?> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
-    if (response.statusCode() != 200) {
-      throw new TerminalException(
-          "Prepare request to restaurant failed with status code: " + response.statusCode());
+    return httpClient
+        .sendAsync(request, HttpResponse.BodyHandlers.discarding())
+        .thenAccept(
+            response -> {
+              if (response.statusCode() != 200) {
+                throw new TerminalException(
+                    "Prepare request to restaurant failed with status code: "
+                        + response.statusCode());
+              }
+            });
+  }
+
+  /**
+   * Encodes the request body straight to bytes with the shared object mapper. The order id comes
+   * from the client's order request, so the fields get JSON escaped.
+   */
+  static byte[] encodeBody(String orderId, String callbackId) {
+    try {
+      return MAPPER.writeValueAsBytes(
+          MAPPER.createObjectNode().put("cb", callbackId).put("orderId", orderId));
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static HttpClient createHttpClient() {
+    // The JDK reads the pool size once, when the first HTTP client is created
+    var poolSize = System.getenv("RESTAURANT_CONNECTION_POOL_SIZE");
+    if (poolSize != null && System.getProperty("jdk.httpclient.connectionPoolSize") == null) {
+      System.setProperty("jdk.httpclient.connectionPoolSize", poolSize);
     }
+    return HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
   }
 }
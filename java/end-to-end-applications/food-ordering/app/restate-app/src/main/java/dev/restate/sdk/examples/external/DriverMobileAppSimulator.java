@@ -13,6 +13,7 @@ package dev.restate.sdk.examples.external;
 
 import dev.restate.sdk.Restate;
 import dev.restate.sdk.annotation.Handler;
+import dev.restate.sdk.annotation.Shared;
 import dev.restate.sdk.annotation.VirtualObject;
 import dev.restate.sdk.common.StateKey;
 import dev.restate.sdk.common.TerminalException;
@@ -21,9 +22,9 @@ import dev.restate.sdk.examples.*;
 import dev.restate.sdk.examples.clients.KafkaPublisher;
 import dev.restate.sdk.examples.types.AssignedDelivery;
 import dev.restate.sdk.examples.types.Location;
+import dev.restate.sdk.examples.types.PublisherStats;
 import dev.restate.sdk.examples.utils.GeoUtils;
 import dev.restate.sdk.http.vertx.RestateHttpServer;
-import dev.restate.serde.jackson.JacksonSerdes;
 import java.time.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -42,7 +43,6 @@ public class DriverMobileAppSimulator {
 
   private final KafkaPublisher producer = new KafkaPublisher();
 
-  private static final long POLL_INTERVAL = 1000;
   private static final long MOVE_INTERVAL = 1000;
   private static final long PAUSE_BETWEEN_DELIVERIES = 2000;
 
@@ -64,38 +64,34 @@ public class DriverMobileAppSimulator {
     logger.info("Starting driver " + Restate.key());
     var location = Restate.run("current location", Location.class, GeoUtils::randomLocation);
     state.set(CURRENT_LOCATION, location);
-    producer.sendDriverUpdate(
-        Restate.key(), JacksonSerdes.of(Location.class).serialize(location).toByteArray());
+    producer.sendDriverUpdate(Restate.key(), location);
 
     // Tell the digital twin of the driver in the food ordering app, that he is available
     Restate.virtualObject(DriverDigitalTwin.class, Restate.key())
         .setDriverAvailable(GeoUtils.DEMO_REGION);
 
-    // Start polling for work
+    // Start waiting for work
     Restate.virtualObjectHandle(DriverMobileAppSimulator.class, Restate.key())
-        .send(DriverMobileAppSimulator::pollForWork);
+        .send(DriverMobileAppSimulator::waitForWork);
   }
 
   /**
-   * Asks the food ordering app to get a new delivery job. If there is no job, the driver will ask
-   * again after a short delay.
+   * Waits until the food ordering app assigns a new delivery job to the driver. The digital twin of
+   * the driver pushes the job by resolving an awakeable, so an idle driver does not cost any
+   * invocations while waiting. Polling every second cost an estimated two invocations per second
+   * per driver, from the handler flow; measure it with the idleDriverInvocations task.
    */
   @Handler
-  public void pollForWork() throws TerminalException {
+  public void waitForWork() throws TerminalException {
     var thisDriverSim = Restate.virtualObjectHandle(DriverMobileAppSimulator.class, Restate.key());
 
-    // Ask the digital twin of the driver in the food ordering app, if he already got a job assigned
-    var optionalAssignedDelivery =
-        Restate.virtualObject(DriverDigitalTwin.class, Restate.key()).getAssignedDelivery();
+    // Ask the digital twin of the driver in the food ordering app to notify us of the next job
+    var assignment = Restate.awakeable(AssignedDelivery.class);
+    Restate.virtualObjectHandle(DriverDigitalTwin.class, Restate.key())
+        .send(DriverDigitalTwin::notifyOnDeliveryAssignment, assignment.id());
+    var delivery = assignment.await();
 
-    // If there is no job, ask again after a short delay
-    if (optionalAssignedDelivery.isEmpty()) {
-      thisDriverSim.send(DriverMobileAppSimulator::pollForWork, Duration.ofMillis(POLL_INTERVAL));
-      return;
-    }
-
-    // If there is a job, start the delivery
-    var delivery = optionalAssignedDelivery.get();
+    // Start the delivery
     var newAssignedDelivery =
         new AssignedDelivery(
             delivery.getDriverId(),
@@ -132,8 +128,7 @@ public class DriverMobileAppSimulator {
     // Move to the next location
     var newLocation = GeoUtils.moveToDestination(currentLocation, nextDestination);
     state.set(CURRENT_LOCATION, newLocation);
-    producer.sendDriverUpdate(
-        Restate.key(), JacksonSerdes.of(Location.class).serialize(newLocation).toByteArray());
+    producer.sendDriverUpdate(Restate.key(), newLocation);
 
     // If we reached the destination, notify the food ordering app
     if (newLocation.equals(nextDestination)) {
@@ -152,9 +147,9 @@ public class DriverMobileAppSimulator {
         Restate.virtualObjectHandle(DriverDigitalTwin.class, Restate.key())
             .send(DriverDigitalTwin::setDriverAvailable, GeoUtils.DEMO_REGION);
 
-        // Start polling for work
+        // Start waiting for work
         Restate.virtualObjectHandle(DriverMobileAppSimulator.class, Restate.key())
-            .send(DriverMobileAppSimulator::pollForWork);
+            .send(DriverMobileAppSimulator::waitForWork);
         return;
       }
 
@@ -170,6 +165,15 @@ public class DriverMobileAppSimulator {
     thisDriverSim.send(DriverMobileAppSimulator::move, Duration.ofMillis(MOVE_INTERVAL));
   }
 
+  /**
+   * Returns the stats of the Kafka publisher for the location updates. The publisher is shared by
+   * all drivers simulated by this process, so every key returns the same stats.
+   */
+  @Shared
+  public PublisherStats getPublisherStats() {
+    return producer.getStats();
+  }
+
   public static void main(String[] args) {
     // external mobile app on driver's phone
     RestateHttpServer.listen(Endpoint.bind(new DriverMobileAppSimulator()), 9081);
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.types;
+
+public class AvailableDriver {
+
+  private final String driverId;
+  private final Location location;
+
+  public AvailableDriver(String driverId, Location location) {
+    this.driverId = driverId;
+    this.location = location;
+  }
+
+  public String getDriverId() {
+    return driverId;
+  }
+
+  public Location getLocation() {
+    return location;
+  }
+}
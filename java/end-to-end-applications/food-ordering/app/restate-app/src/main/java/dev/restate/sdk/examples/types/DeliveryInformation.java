@@ -17,6 +17,8 @@ public class DeliveryInformation {
   private final String restaurantId;
   private final Location restaurantLocation;
   private final Location customerLocation;
+  // The way from the restaurant to the customer doesn't change, so its ETA is only computed once
+  private final long restaurantToCustomerEtaMillis;
   private boolean orderPickedUp;
 
   public DeliveryInformation(
@@ -25,12 +27,14 @@ public class DeliveryInformation {
       String restaurantId,
       Location restaurantLocation,
       Location customerLocation,
+      long restaurantToCustomerEtaMillis,
       boolean orderPickedUp) {
     this.orderId = orderId;
     this.callbackId = callbackId;
     this.restaurantId = restaurantId;
     this.restaurantLocation = restaurantLocation;
     this.customerLocation = customerLocation;
+    this.restaurantToCustomerEtaMillis = restaurantToCustomerEtaMillis;
     this.orderPickedUp = orderPickedUp;
   }
 
@@ -54,6 +58,10 @@ public class DeliveryInformation {
     return customerLocation;
   }
 
+  public long getRestaurantToCustomerEtaMillis() {
+    return restaurantToCustomerEtaMillis;
+  }
+
   public boolean isOrderPickedUp() {
     return orderPickedUp;
   }
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.types;
+
+/**
+ * Location coalescing state of a driver: the last location that was forwarded to the delivery
+ * manager and when, and how many updates were forwarded and dropped.
+ */
+public class LocationUpdateStats {
+
+  private final long forwarded;
+  private final long dropped;
+  private final Location lastForwardedLocation;
+  private final long lastForwardedAt;
+
+  public LocationUpdateStats(
+      long forwarded, long dropped, Location lastForwardedLocation, long lastForwardedAt) {
+    this.forwarded = forwarded;
+    this.dropped = dropped;
+    this.lastForwardedLocation = lastForwardedLocation;
+    this.lastForwardedAt = lastForwardedAt;
+  }
+
+  public static LocationUpdateStats empty() {
+    return new LocationUpdateStats(0, 0, null, 0);
+  }
+
+  public long getForwarded() {
+    return forwarded;
+  }
+
+  public long getDropped() {
+    return dropped;
+  }
+
+  public Location getLastForwardedLocation() {
+    return lastForwardedLocation;
+  }
+
+  public long getLastForwardedAt() {
+    return lastForwardedAt;
+  }
+
+  public LocationUpdateStats withForwarded(Location location, long at) {
+    return new LocationUpdateStats(forwarded + 1, dropped, location, at);
+  }
+
+  public LocationUpdateStats withDropped() {
+    return new LocationUpdateStats(forwarded, dropped + 1, lastForwardedLocation, lastForwardedAt);
+  }
+
+  /** Makes sure the next location update gets forwarded. */
+  public LocationUpdateStats withoutLastForwarded() {
+    return new LocationUpdateStats(forwarded, dropped, null, 0);
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.types;
+
+public class PublisherStats {
+
+  private final long acknowledged;
+  private final long failed;
+  private final long dropped;
+  private final long backpressureWaits;
+  private final long inFlight;
+
+  public PublisherStats(
+      long acknowledged, long failed, long dropped, long backpressureWaits, long inFlight) {
+    this.acknowledged = acknowledged;
+    this.failed = failed;
+    this.dropped = dropped;
+    this.backpressureWaits = backpressureWaits;
+    this.inFlight = inFlight;
+  }
+
+  public long getAcknowledged() {
+    return acknowledged;
+  }
+
+  public long getFailed() {
+    return failed;
+  }
+
+  public long getDropped() {
+    return dropped;
+  }
+
+  public long getBackpressureWaits() {
+    return backpressureWaits;
+  }
+
+  public long getInFlight() {
+    return inFlight;
+  }
+
+  @Override
+  public String toString() {
+    return "PublisherStats{"
+        + "acknowledged="
+        + acknowledged
+        + ", failed="
+        + failed
+        + ", dropped="
+        + dropped
+        + ", backpressureWaits="
+        + backpressureWaits
+        + ", inFlight="
+        + inFlight
+        + '}';
+  }
+}
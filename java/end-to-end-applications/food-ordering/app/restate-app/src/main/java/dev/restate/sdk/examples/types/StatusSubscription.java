@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.types;
+
+public class StatusSubscription {
+
+  private final StatusEnum lastSeenStatus;
+  private final String callbackId;
+
+  public StatusSubscription(StatusEnum lastSeenStatus, String callbackId) {
+    this.lastSeenStatus = lastSeenStatus;
+    this.callbackId = callbackId;
+  }
+
+  public StatusEnum getLastSeenStatus() {
+    return lastSeenStatus;
+  }
+
+  public String getCallbackId() {
+    return callbackId;
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.types;
+
+/** Update of the status and/or the ETA of an order. Fields that are null are left unchanged. */
+public class StatusUpdate {
+
+  private final StatusEnum status;
+  private final Long eta;
+
+  public StatusUpdate(StatusEnum status, Long eta) {
+    this.status = status;
+    this.eta = eta;
+  }
+
+  public static StatusUpdate status(StatusEnum status) {
+    return new StatusUpdate(status, null);
+  }
+
+  public static StatusUpdate eta(long eta) {
+    return new StatusUpdate(null, eta);
+  }
+
+  public StatusEnum getStatus() {
+    return status;
+  }
+
+  public Long getEta() {
+    return eta;
+  }
+}
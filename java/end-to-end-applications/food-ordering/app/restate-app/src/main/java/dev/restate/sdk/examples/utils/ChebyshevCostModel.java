@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.utils;
+
+/**
+ * Travel time based on the largest of the longitude and latitude difference, at a constant speed
+ * (in degrees per second). Cheap, and the default cost model.
+ */
+public class ChebyshevCostModel implements TravelCostModel {
+
+  private final double speed;
+
+  public ChebyshevCostModel(double speed) {
+    this.speed = speed;
+  }
+
+  @Override
+  public long travelMillis(double fromLon, double fromLat, double toLon, double toLat) {
+    var distance = Math.max(Math.abs(toLon - fromLon), Math.abs(toLat - fromLat));
+    return Math.round(1000 * distance / speed);
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.utils;
+
+import dev.restate.sdk.Restate;
+import dev.restate.sdk.State;
+import dev.restate.sdk.common.StateKey;
+import dev.restate.serde.TypeRef;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * FIFO queue of strings stored in the K/V state of the virtual object that uses it.
+ *
+ * <p>Instead of storing the whole queue as a single state value, every entry gets its own state key
+ * and two index keys track the head and the tail of the queue. Offering or polling an entry
+ * therefore only reads and writes a few small values, no matter how many entries are queued.
+ *
+ * <p>Earlier versions stored the whole queue as a list under the name of the queue. Such a list
+ * gets moved into the segmented layout the first time the queue is used while it is empty, so
+ * objects that still have queued entries in the old layout don't lose them.
+ *
+ * <p>Can only be used from within a handler of a virtual object.
+ */
+public class DurableQueue {
+
+  private final StateKey<Long> headKey;
+  private final StateKey<Long> tailKey;
+  private final String entryKeyPrefix;
+  private final StateKey<List<String>> legacyListKey;
+
+  public DurableQueue(String name) {
+    this.headKey = StateKey.of(name + "-head", Long.TYPE);
+    this.tailKey = StateKey.of(name + "-tail", Long.TYPE);
+    this.entryKeyPrefix = name + "-";
+    this.legacyListKey = StateKey.of(name, new TypeRef<>() {});
+  }
+
+  /** Adds the value at the tail of the queue. */
+  public void offer(String value) {
+    offer(Restate.state(), value);
+  }
+
+  /** Removes and returns the value at the head of the queue, or empty if the queue is empty. */
+  public Optional<String> poll() {
+    return poll(Restate.state());
+  }
+
+  /** Returns the number of values in the queue. */
+  public long size() {
+    return size(Restate.state());
+  }
+
+  void offer(State state, String value) {
+    long tail = tail(state);
+    state.set(entryKey(tail), value);
+    state.set(tailKey, tail + 1);
+  }
+
+  Optional<String> poll(State state) {
+    long tail = tail(state);
+    long head = state.get(headKey).orElse(0L);
+    if (head >= tail) {
+      return Optional.empty();
+    }
+
+    var entryKey = entryKey(head);
+    var value = state.get(entryKey);
+    state.clear(entryKey);
+    if (head + 1 == tail) {
+      // Queue drained: reset the indexes so they don't grow forever
+      state.clear(headKey);
+      state.clear(tailKey);
+    } else {
+      state.set(headKey, head + 1);
+    }
+    return value;
+  }
+
+  long size(State state) {
+    return tail(state) - state.get(headKey).orElse(0L);
+  }
+
+  // The tail is only missing while the queue is empty, so that is the only time the legacy list
+  // needs to be checked
+  private long tail(State state) {
+    var tail = state.get(tailKey);
+    if (tail.isPresent()) {
+      return tail.get();
+    }
+
+    var legacyList = state.get(legacyListKey);
+    if (legacyList.isEmpty()) {
+      return 0;
+    }
+    state.clear(legacyListKey);
+    var entries = legacyList.get();
+    for (int i = 0; i < entries.size(); i++) {
+      state.set(entryKey(i), entries.get(i));
+    }
+    if (!entries.isEmpty()) {
+      state.set(tailKey, (long) entries.size());
+    }
+    return entries.size();
+  }
+
+  private StateKey<String> entryKey(long index) {
+    return StateKey.of(entryKeyPrefix + index, String.class);
+  }
+}
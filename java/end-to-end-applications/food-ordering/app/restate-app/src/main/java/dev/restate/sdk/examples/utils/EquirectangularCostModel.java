@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.utils;
+
+/**
+ * Travel time based on the straight-line distance, using the equirectangular approximation (the
+ * longitude difference is scaled by the cosine of the mean latitude), at a constant speed (in
+ * degrees per second). Accurate enough for city-sized distances and much cheaper than haversine.
+ */
+public class EquirectangularCostModel implements TravelCostModel {
+
+  private final double speed;
+
+  public EquirectangularCostModel(double speed) {
+    this.speed = speed;
+  }
+
+  @Override
+  public long travelMillis(double fromLon, double fromLat, double toLon, double toLat) {
+    var dx = (toLon - fromLon) * Math.cos(Math.toRadians((fromLat + toLat) / 2));
+    var dy = toLat - fromLat;
+    return Math.round(1000 * Math.sqrt(dx * dx + dy * dy) / speed);
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.utils;
+
+import dev.restate.sdk.examples.types.DeliveryInformation;
+import dev.restate.sdk.examples.types.Location;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Calculates delivery ETAs with a pluggable cost model, selected with ETA_COST_MODEL:
+ *
+ * <ul>
+ *   <li>chebyshev (default): see ChebyshevCostModel
+ *   <li>equirectangular: see EquirectangularCostModel
+ *   <li>grid: travel time table loaded from the file at ETA_TRAVEL_TIME_TABLE, see
+ *       GridTravelTimeCostModel
+ * </ul>
+ */
+public class EtaEngine {
+
+  private static final TravelCostModel COST_MODEL = costModelFromEnv();
+
+  /** ETA between two locations. */
+  public static long etaMillis(Location from, Location to) {
+    return COST_MODEL.travelMillis(from.getLon(), from.getLat(), to.getLon(), to.getLat());
+  }
+
+  /**
+   * ETA of the delivery to the customer, given the current location of the driver. Before pickup,
+   * this is the way to the restaurant plus the precomputed way from the restaurant to the customer.
+   */
+  public static long deliveryEtaMillis(DeliveryInformation delivery, Location driverLocation) {
+    if (delivery.isOrderPickedUp()) {
+      return etaMillis(driverLocation, delivery.getCustomerLocation());
+    }
+    return etaMillis(driverLocation, delivery.getRestaurantLocation())
+        + delivery.getRestaurantToCustomerEtaMillis();
+  }
+
+  private static TravelCostModel costModelFromEnv() {
+    var chebyshev = new ChebyshevCostModel(GeoUtils.SPEED);
+    var costModel = System.getenv("ETA_COST_MODEL");
+    if (costModel == null || costModel.equals("chebyshev")) {
+      return chebyshev;
+    }
+    if (costModel.equals("equirectangular")) {
+      return new EquirectangularCostModel(GeoUtils.SPEED);
+    }
+    if (costModel.equals("grid")) {
+      var tableFile = System.getenv("ETA_TRAVEL_TIME_TABLE");
+      if (tableFile == null) {
+        throw new IllegalStateException("ETA_COST_MODEL=grid requires ETA_TRAVEL_TIME_TABLE");
+      }
+      try (var reader = new FileReader(tableFile)) {
+        return new GridTravelTimeCostModel(reader, chebyshev);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Cannot load travel time table " + tableFile, e);
+      }
+    }
+    throw new IllegalStateException("Unknown ETA_COST_MODEL: " + costModel);
+  }
+}
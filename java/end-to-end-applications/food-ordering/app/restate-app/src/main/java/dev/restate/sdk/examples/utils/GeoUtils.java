@@ -12,15 +12,23 @@
 package dev.restate.sdk.examples.utils;
 
 import dev.restate.sdk.examples.types.Location;
+import java.util.ArrayList;
+import java.util.List;
 
 public class GeoUtils {
   public static final String DEMO_REGION = "San Jose (CA)";
 
+  // Size (in degrees) of the square grid cells the region gets sharded into for geo-sharded
+  // driver matching. The demo region spans 0.135 degrees, so the cell indexes run from -3 to 2
+  // and this gives a 6x6 grid.
+  private static final double CELL_SIZE = 0.027;
+
   private static final double LONG_MIN = -0.0675;
   private static final double LONG_MAX = 0.0675;
   private static final double LAT_MIN = -0.0675;
   private static final double LAT_MAX = 0.0675;
-  private static final double SPEED = 0.005;
+  // Speed of the drivers, in degrees per second
+  public static final double SPEED = 0.005;
 
   public static double randomInInterval(double min, double max) {
     double range = max - min;
@@ -42,10 +50,43 @@ public class GeoUtils {
     return new Location(location.getLon() + dx * ratio, location.getLat() + dy * ratio);
   }
 
-  public static Long calculateEtaMillis(Location currentLocation, Location targetLocation) {
-    var longDiff = Math.abs(targetLocation.getLon() - currentLocation.getLon());
-    var latDiff = Math.abs(targetLocation.getLat() - currentLocation.getLat());
-    var distance = Math.max(longDiff, latDiff);
-    return Math.round(1000 * distance / SPEED);
+  /**
+   * Returns the key of the grid cell the location falls into. Each cell is backed by its own
+   * DriverDeliveryMatcher object when geo-sharded matching is enabled.
+   */
+  public static String cellOf(Location location) {
+    return cellKey(cellIndex(location.getLon()), cellIndex(location.getLat()));
+  }
+
+  /** Returns the keys of the (up to eight) cells surrounding the cell of the location. */
+  public static List<String> neighbouringCellsOf(Location location) {
+    long x = cellIndex(location.getLon());
+    long y = cellIndex(location.getLat());
+    List<String> neighbours = new ArrayList<>(8);
+    for (long dx = -1; dx <= 1; dx++) {
+      for (long dy = -1; dy <= 1; dy++) {
+        if (dx == 0 && dy == 0) {
+          continue;
+        }
+        neighbours.add(cellKey(x + dx, y + dy));
+      }
+    }
+    return neighbours;
+  }
+
+  /** Squared straight-line distance, good enough to rank drivers by proximity. */
+  public static double squaredDistance(Location a, Location b) {
+    double dx = a.getLon() - b.getLon();
+    double dy = a.getLat() - b.getLat();
+    return dx * dx + dy * dy;
+  }
+
+  /** Index of the grid cell row or column the coordinate falls into. */
+  public static long cellIndex(double coordinate) {
+    return (long) Math.floor(coordinate / CELL_SIZE);
+  }
+
+  private static String cellKey(long x, long y) {
+    return DEMO_REGION + "/" + x + ":" + y;
   }
 }
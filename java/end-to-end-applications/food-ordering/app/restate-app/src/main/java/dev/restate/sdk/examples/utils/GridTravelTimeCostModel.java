@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Travel times between grid cells (see GeoUtils.cellOf), looked up in a table loaded from a file.
+ * Each non-empty line that does not start with # has the form
+ *
+ * <pre>fromCellX,fromCellY,toCellX,toCellY,travelMillis</pre>
+ *
+ * Pairs of cells that are not in the table fall back to another cost model.
+ */
+public class GridTravelTimeCostModel implements TravelCostModel {
+
+  private static final long UNKNOWN = -1;
+  // Largest number of cell pairs the table can hold, about the maximum length of a long array
+  private static final long MAX_CELL_PAIRS = Integer.MAX_VALUE - 8;
+
+  private final TravelCostModel fallback;
+  private final long minX;
+  private final long minY;
+  private final int width;
+  private final int height;
+  private final int cellCount;
+  // Travel times indexed by (fromCell * cellCount + toCell), UNKNOWN if not in the table
+  private final long[] travelMillis;
+
+  public GridTravelTimeCostModel(Reader table, TravelCostModel fallback) throws IOException {
+    this.fallback = fallback;
+
+    var rows = new ArrayList<long[]>();
+    try (var reader = new BufferedReader(table)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.strip();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        var fields = line.split(",");
+        if (fields.length != 5) {
+          throw new IllegalArgumentException("Invalid travel time table row: " + line);
+        }
+        var row = new long[5];
+        for (int i = 0; i < 5; i++) {
+          row[i] = Long.parseLong(fields[i].strip());
+        }
+        rows.add(row);
+      }
+    }
+
+    long minX = Long.MAX_VALUE;
+    long maxX = Long.MIN_VALUE;
+    long minY = Long.MAX_VALUE;
+    long maxY = Long.MIN_VALUE;
+    for (var row : rows) {
+      minX = Math.min(minX, Math.min(row[0], row[2]));
+      maxX = Math.max(maxX, Math.max(row[0], row[2]));
+      minY = Math.min(minY, Math.min(row[1], row[3]));
+      maxY = Math.max(maxY, Math.max(row[1], row[3]));
+    }
+    this.minX = rows.isEmpty() ? 0 : minX;
+    this.minY = rows.isEmpty() ? 0 : minY;
+    // Counted in long, so an oversized grid gets rejected instead of overflowing the table index
+    long spanX = rows.isEmpty() ? 0 : span(minX, maxX);
+    long spanY = rows.isEmpty() ? 0 : span(minY, maxY);
+    if (spanX > 0 && spanY > MAX_CELL_PAIRS / spanX
+        || spanX * spanY > 0 && spanX * spanY > MAX_CELL_PAIRS / (spanX * spanY)) {
+      throw new IllegalArgumentException(
+          "Travel time table spans too many cells: " + spanX + "x" + spanY);
+    }
+    this.width = (int) spanX;
+    this.height = (int) spanY;
+    this.cellCount = width * height;
+
+    this.travelMillis = new long[cellCount * cellCount];
+    Arrays.fill(travelMillis, UNKNOWN);
+    for (var row : rows) {
+      var from = cell(row[0], row[1]);
+      var to = cell(row[2], row[3]);
+      travelMillis[from * cellCount + to] = row[4];
+    }
+  }
+
+  @Override
+  public long travelMillis(double fromLon, double fromLat, double toLon, double toLat) {
+    var from = cell(GeoUtils.cellIndex(fromLon), GeoUtils.cellIndex(fromLat));
+    var to = cell(GeoUtils.cellIndex(toLon), GeoUtils.cellIndex(toLat));
+    if (from >= 0 && to >= 0) {
+      var millis = travelMillis[from * cellCount + to];
+      if (millis != UNKNOWN) {
+        return millis;
+      }
+    }
+    return fallback.travelMillis(fromLon, fromLat, toLon, toLat);
+  }
+
+  // Number of cells from min to max, or Long.MAX_VALUE if that does not fit in a long
+  private static long span(long min, long max) {
+    try {
+      return Math.addExact(Math.subtractExact(max, min), 1);
+    } catch (ArithmeticException e) {
+      return Long.MAX_VALUE;
+    }
+  }
+
+  // Returns the position of the cell in the table, or -1 if the cell is outside of the table
+  private int cell(long x, long y) {
+    if (x < minX || x >= minX + width || y < minY || y >= minY + height) {
+      return -1;
+    }
+    return (int) ((x - minX) * height + (y - minY));
+  }
+}
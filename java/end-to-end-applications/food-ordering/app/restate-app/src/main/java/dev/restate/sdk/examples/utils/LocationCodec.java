@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.utils;
+
+import dev.restate.common.Slice;
+import dev.restate.sdk.examples.types.Location;
+import dev.restate.serde.Serde;
+import dev.restate.serde.jackson.JacksonSerdes;
+import java.nio.ByteBuffer;
+import java.util.OptionalLong;
+
+/**
+ * Compact binary encoding of a Location for the driver-updates Kafka topic: the longitude and the
+ * latitude as two big-endian doubles, followed by the time the driver app took the location as a
+ * big-endian long (epoch millis), 24 bytes in total.
+ *
+ * <p>Decoding also accepts the 16 byte encoding without the time and JSON encoded locations, as
+ * published by earlier versions of the driver app. A JSON location can have the same length as a
+ * binary one, so it is recognized by its leading '{' instead. A binary location never starts with
+ * that byte: it would be the first byte of a longitude above 1e280.
+ */
+public class LocationCodec {
+
+  public static final int ENCODED_SIZE = 2 * Double.BYTES + Long.BYTES;
+  private static final int UNTIMED_ENCODED_SIZE = 2 * Double.BYTES;
+
+  private static final Serde<Location> JSON_SERDE = JacksonSerdes.of(Location.class);
+
+  public static byte[] encode(Location location) {
+    return ByteBuffer.allocate(ENCODED_SIZE)
+        .putDouble(location.getLon())
+        .putDouble(location.getLat())
+        .putLong(System.currentTimeMillis())
+        .array();
+  }
+
+  public static Location decode(byte[] bytes) {
+    if (isJson(bytes) || (bytes.length != ENCODED_SIZE && bytes.length != UNTIMED_ENCODED_SIZE)) {
+      return JSON_SERDE.deserialize(Slice.wrap(bytes));
+    }
+    var buffer = ByteBuffer.wrap(bytes);
+    return new Location(buffer.getDouble(), buffer.getDouble());
+  }
+
+  /** Returns the time the location was taken at, if the encoding carries it. */
+  public static OptionalLong timestampOf(byte[] bytes) {
+    if (isJson(bytes) || bytes.length != ENCODED_SIZE) {
+      return OptionalLong.empty();
+    }
+    return OptionalLong.of(ByteBuffer.wrap(bytes).getLong(UNTIMED_ENCODED_SIZE));
+  }
+
+  private static boolean isJson(byte[] bytes) {
+    return bytes.length > 0 && bytes[0] == '{';
+  }
+}
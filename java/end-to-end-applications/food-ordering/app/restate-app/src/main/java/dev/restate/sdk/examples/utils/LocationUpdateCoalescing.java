@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.utils;
+
+import dev.restate.sdk.examples.types.Location;
+
+/**
+ * Decides which driver location updates get forwarded to the delivery manager (and from there to
+ * the order status service). Enabled with LOCATION_COALESCING=true; by default every update gets
+ * forwarded.
+ *
+ * <p>An update is forwarded if the driver moved at least LOCATION_MIN_DISTANCE (in degrees) since
+ * the last forwarded update and at least LOCATION_MIN_INTERVAL_MS passed, or if
+ * LOCATION_MAX_INTERVAL_MS passed regardless of the distance.
+ */
+public class LocationUpdateCoalescing {
+
+  public static final boolean ENABLED = "true".equals(System.getenv("LOCATION_COALESCING"));
+
+  private static final long MIN_INTERVAL_MS = envLong("LOCATION_MIN_INTERVAL_MS", 2000);
+  private static final long MAX_INTERVAL_MS = envLong("LOCATION_MAX_INTERVAL_MS", 10000);
+  private static final double MIN_DISTANCE =
+      System.getenv("LOCATION_MIN_DISTANCE") != null
+          ? Double.parseDouble(System.getenv("LOCATION_MIN_DISTANCE"))
+          : 0.01;
+
+  public static boolean shouldForward(
+      Location lastForwarded, long lastForwardedAtMillis, Location current, long nowMillis) {
+    if (!ENABLED || lastForwarded == null) {
+      return true;
+    }
+    long elapsed = nowMillis - lastForwardedAtMillis;
+    if (elapsed >= MAX_INTERVAL_MS) {
+      return true;
+    }
+    return elapsed >= MIN_INTERVAL_MS
+        && GeoUtils.squaredDistance(lastForwarded, current) >= MIN_DISTANCE * MIN_DISTANCE;
+  }
+
+  private static long envLong(String name, long defaultValue) {
+    return System.getenv(name) != null ? Long.parseLong(System.getenv(name)) : defaultValue;
+  }
+}
@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) 2024 - Restate Software, Inc., Restate GmbH
+ *
+ * This file is part of the Restate examples,
+ * which is released under the MIT license.
+ *
+ * You can find a copy of the license in the file LICENSE
+ * in the root directory of this repository or package or at
+ * https://github.com/restatedev/examples/
+ */
+
+package dev.restate.sdk.examples.utils;
+
+/**
+ * Estimates the travel time between two coordinates. Implementations take primitive coordinates and
+ * return a primitive, so ETA calculations don't allocate.
+ */
+public interface TravelCostModel {
+
+  long travelMillis(double fromLon, double fromLat, double toLon, double toLat);
+}
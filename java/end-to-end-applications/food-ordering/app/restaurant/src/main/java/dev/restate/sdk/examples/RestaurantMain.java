@@ -5,13 +5,22 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import dev.restate.client.Client;
+import dev.restate.serde.TypeTag;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import dev.restate.client.Client;
-import dev.restate.serde.TypeTag;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -19,6 +28,10 @@ import org.apache.logging.log4j.Logger;
  * Restaurant POS system (HTTP server) that receives preparation requests for orders from the
  * OrderService. Once a preparation has been completed, it notifies the OrderService via the
  * callback.
+ *
+ * <p>Requests are served on virtual threads. Prepared orders are collected in a delay queue, and a
+ * resolver drains all orders that are ready on every tick and resolves their awakeables
+ * concurrently. Throughput and latency are reported as JSON on /metrics.
  */
 public class RestaurantMain {
   private static final Logger logger = LogManager.getLogger(RestaurantMain.class);
@@ -27,10 +40,25 @@ public class RestaurantMain {
           ? System.getenv("RESTATE_RUNTIME_ENDPOINT")
           : "http://localhost:8080";
 
+  // How long the preparation of an order takes
+  private static final long PREPARATION_TIME_MS = envLong("PREPARATION_TIME_MS", 3000);
+  // How often ready orders are resolved, and the most awakeables that are resolved per tick
+  private static final long RESOLVE_TICK_MS = envLong("RESOLVE_TICK_MS", 50);
+  private static final int MAX_RESOLVES_PER_TICK = (int) envLong("MAX_RESOLVES_PER_TICK", 1000);
+  private static final long RESOLVE_RETRY_DELAY_MS = 1000;
+  private static final int MAX_RESOLVE_ATTEMPTS = 5;
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final Metrics METRICS = new Metrics();
+
   public static void main(String[] args) throws IOException {
+    var resolver = new ReadyOrderResolver(Client.connect(RESTATE_RUNTIME_ENDPOINT));
+    resolver.start();
+
     HttpServer server = HttpServer.create(new InetSocketAddress(5050), 0);
-    server.createContext("/prepare", new PrepareHandler());
-    server.setExecutor(null);
+    server.createContext("/prepare", new PrepareHandler(resolver));
+    server.createContext("/metrics", new MetricsHandler(resolver));
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
     server.start();
     logger.info("Restaurant POS server is listening on port 5050...");
   }
@@ -38,27 +66,199 @@ public class RestaurantMain {
   /** Preparation request handler. */
   static class PrepareHandler implements HttpHandler {
 
-    private static final ScheduledExecutorService DELAY_EXECUTOR =
-        Executors.newSingleThreadScheduledExecutor();
+    private final ReadyOrderResolver resolver;
 
-    private final Client ingressClient = Client.connect(RESTATE_RUNTIME_ENDPOINT);
+    PrepareHandler(ReadyOrderResolver resolver) {
+      this.resolver = resolver;
+    }
 
     @Override
     public void handle(HttpExchange t) throws IOException {
-      ObjectMapper mapper = new ObjectMapper();
-      JsonNode node = mapper.readTree(t.getRequestBody());
-      String orderId = node.get("orderId").asText();
-      String callbackId = node.get("cb").asText();
+      long start = System.nanoTime();
+      try (t) {
+        JsonNode node = MAPPER.readTree(t.getRequestBody());
+        String orderId = node.get("orderId").asText();
+        String callbackId = node.get("cb").asText();
+
+        logger.info("Order {} received", orderId);
+        resolver.schedule(orderId, callbackId, PREPARATION_TIME_MS);
+
+        t.sendResponseHeaders(200, -1);
+      }
+      METRICS.prepareRequests.record(System.nanoTime() - start);
+    }
+  }
+
+  /** Reports the metrics as JSON. */
+  static class MetricsHandler implements HttpHandler {
+
+    private final ReadyOrderResolver resolver;
+
+    MetricsHandler(ReadyOrderResolver resolver) {
+      this.resolver = resolver;
+    }
+
+    @Override
+    public void handle(HttpExchange t) throws IOException {
+      try (t) {
+        byte[] body = MAPPER.writeValueAsBytes(METRICS.snapshot(resolver.pending()));
+        t.getResponseHeaders().add("Content-Type", "application/json");
+        t.sendResponseHeaders(200, body.length);
+        t.getResponseBody().write(body);
+      }
+    }
+  }
+
+  /**
+   * Resolves the awakeables of prepared orders. Instead of a timer task per order, which all ran
+   * one after the other on a single thread, every tick drains all orders that are ready and
+   * resolves them concurrently. Failed resolutions are retried on a later tick.
+   */
+  static class ReadyOrderResolver {
+
+    private final DelayQueue<PreparedOrder> preparing = new DelayQueue<>();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+    private final Client ingressClient;
+
+    ReadyOrderResolver(Client ingressClient) {
+      this.ingressClient = ingressClient;
+    }
+
+    void start() {
+      ticker.scheduleWithFixedDelay(
+          this::resolveReadyOrders, RESOLVE_TICK_MS, RESOLVE_TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    void schedule(String orderId, String callbackId, long delayMillis) {
+      schedule(orderId, callbackId, delayMillis, 1);
+    }
 
-      logger.info("Order {} received", orderId);
+    private void schedule(String orderId, String callbackId, long delayMillis, int attempt) {
+      long readyAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+      preparing.add(new PreparedOrder(orderId, callbackId, readyAt, attempt));
+    }
+
+    int pending() {
+      return preparing.size();
+    }
+
+    private void resolveReadyOrders() {
+      List<PreparedOrder> ready = new ArrayList<>();
+      preparing.drainTo(ready, MAX_RESOLVES_PER_TICK);
+      if (ready.isEmpty()) {
+        return;
+      }
 
-      Runnable orderReadyNotification = () -> {
-        logger.info("Order {} prepared and ready for shipping", orderId);
-        ingressClient.awakeableHandle(callbackId).resolve(TypeTag.of(Void.TYPE), null);
-      };
-      DELAY_EXECUTOR.schedule(orderReadyNotification, 3, TimeUnit.SECONDS);
+      var resolutions = new CompletableFuture<?>[ready.size()];
+      for (int i = 0; i < ready.size(); i++) {
+        var order = ready.get(i);
+        resolutions[i] =
+            ingressClient
+                .awakeableHandle(order.callbackId())
+                .resolveAsync(TypeTag.of(Void.TYPE), null)
+                .whenComplete(
+                    (response, failure) -> {
+                      if (failure != null) {
+                        METRICS.resolveFailures.increment();
+                        if (order.attempt() < MAX_RESOLVE_ATTEMPTS) {
+                          logger.warn(
+                              "Failed to notify that order {} is ready, retrying", order.orderId());
+                          schedule(
+                              order.orderId(),
+                              order.callbackId(),
+                              RESOLVE_RETRY_DELAY_MS,
+                              order.attempt() + 1);
+                        } else {
+                          logger.error(
+                              "Failed to notify that order {} is ready", order.orderId(), failure);
+                        }
+                      } else {
+                        logger.info("Order {} prepared and ready for shipping", order.orderId());
+                        METRICS.resolutions.record(System.nanoTime() - order.readyAtNanos());
+                      }
+                    });
+      }
+      METRICS.resolveBatches.record(ready.size());
 
-      t.sendResponseHeaders(200, -1);
+      // Wait for this batch before draining the next one, so resolutions don't pile up
+      CompletableFuture.allOf(resolutions).exceptionally(failure -> null).join();
     }
   }
+
+  record PreparedOrder(String orderId, String callbackId, long readyAtNanos, int attempt)
+      implements Delayed {
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(readyAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      return Long.compare(readyAtNanos, ((PreparedOrder) other).readyAtNanos);
+    }
+  }
+
+  /** Counters, rates and latencies of the POS server since it started. */
+  static class Metrics {
+
+    private final long startNanos = System.nanoTime();
+    // Latency of handling a prepare request, in nanos
+    final Recorder prepareRequests = new Recorder();
+    // Time between an order being ready and its awakeable being resolved, in nanos
+    final Recorder resolutions = new Recorder();
+    // Number of awakeables resolved per tick
+    final Recorder resolveBatches = new Recorder();
+    final LongAdder resolveFailures = new LongAdder();
+
+    Map<String, Object> snapshot(int pendingOrders) {
+      double uptimeSeconds = (System.nanoTime() - startNanos) / 1e9;
+      Map<String, Object> metrics = new LinkedHashMap<>();
+      metrics.put("uptimeSeconds", uptimeSeconds);
+      metrics.put("prepareRequests", prepareRequests.count());
+      metrics.put("prepareRequestsPerSecond", prepareRequests.count() / uptimeSeconds);
+      metrics.put("prepareLatencyAvgMillis", prepareRequests.average() / 1e6);
+      metrics.put("prepareLatencyMaxMillis", prepareRequests.max() / 1e6);
+      metrics.put("ordersInPreparation", pendingOrders);
+      metrics.put("resolvedOrders", resolutions.count());
+      metrics.put("resolvedOrdersPerSecond", resolutions.count() / uptimeSeconds);
+      metrics.put("resolveDelayAvgMillis", resolutions.average() / 1e6);
+      metrics.put("resolveDelayMaxMillis", resolutions.max() / 1e6);
+      metrics.put("resolveFailures", resolveFailures.sum());
+      metrics.put("resolveBatches", resolveBatches.count());
+      metrics.put("resolveBatchSizeAvg", resolveBatches.average());
+      metrics.put("resolveBatchSizeMax", resolveBatches.max());
+      return metrics;
+    }
+  }
+
+  /** Count, sum and max of recorded values, safe to update from many threads. */
+  static class Recorder {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    void record(long value) {
+      count.increment();
+      sum.add(value);
+      max.accumulate(value);
+    }
+
+    long count() {
+      return count.sum();
+    }
+
+    double average() {
+      long n = count.sum();
+      return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    long max() {
+      return max.get();
+    }
+  }
+
+  private static long envLong(String name, long defaultValue) {
+    return System.getenv(name) != null ? Long.parseLong(System.getenv(name)) : defaultValue;
+  }
 }
@@ -3,7 +3,7 @@ plugins {
 }
 
 rootProject.name = "food-ordering-app"
-include("restaurant", "restate-app")
+include("restaurant", "restate-app", "load-generator")
 
 dependencyResolutionManagement {
     repositories {
@@ -32,6 +32,51 @@ dependencies {
   implementation("com.cronutils:cron-utils:9.2.1")
 }
 
+// JMH benchmarks live in src/jmh/java
+val jmh: SourceSet by sourceSets.creating {
+  compileClasspath += sourceSets.main.get().output
+  runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[jmh.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[jmh.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
+dependencies {
+  "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+  "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+}
+
+// Run with ./gradlew jmh, or pass a benchmark regex with -Pjmh.includes=<regex>.
+// The result file is named after the SDK version, to compare the results before and after a bump.
+tasks.register<JavaExec>("jmh") {
+  group = "benchmark"
+  description = "Runs the JMH benchmarks and writes the results to build/reports/jmh/results-restate-<version>.json"
+  classpath = jmh.runtimeClasspath
+  mainClass.set("org.openjdk.jmh.Main")
+  val resultFile = layout.buildDirectory.file("reports/jmh/results-restate-$restateVersion.json").get().asFile
+  args(listOfNotNull(project.findProperty("jmh.includes")?.toString()) + listOf("-rf", "json", "-rff", resultFile.absolutePath))
+  jvmArgs("--enable-native-access=ALL-UNNAMED", "--sun-misc-unsafe-memory-access=allow")
+  doFirst { resultFile.parentFile.mkdirs() }
+}
+
+// Load test harnesses that run against a Restate server live in src/harness/java
+val harness: SourceSet by sourceSets.creating {
+  compileClasspath += sourceSets.main.get().output
+  runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[harness.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[harness.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
+// Run with ./gradlew harness -PmainClass=<harness class>
+tasks.register<JavaExec>("harness") {
+  group = "benchmark"
+  description = "Runs the load test harness given with -PmainClass against a running Restate server"
+  classpath = harness.runtimeClasspath
+  mainClass.set(project.findProperty("mainClass")?.toString())
+  jvmArgs("--enable-native-access=ALL-UNNAMED", "--sun-misc-unsafe-memory-access=allow")
+}
+
 java {
   toolchain {
     languageVersion.set(JavaLanguageVersion.of(25))
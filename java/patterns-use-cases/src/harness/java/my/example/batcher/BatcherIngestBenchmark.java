@@ -0,0 +1,71 @@
+package my.example.batcher;
+
+import dev.restate.client.Client;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Ingest benchmark comparing receive, one item per invocation, with receiveAll, BULK_SIZE items per
+ * invocation. Sends ITEMS items to one Batcher key from CONCURRENCY concurrent callers, and
+ * measures the time until the batcher has flushed all of them. Start the batcher service first, see
+ * the README.
+ */
+public class BatcherIngestBenchmark {
+
+  private static final String RESTATE_URL = "http://localhost:8080";
+  private static final int ITEMS = (int) Batcher.envLong("ITEMS", 10_000);
+  private static final int CONCURRENCY = (int) Batcher.envLong("CONCURRENCY", 16);
+  private static final int BULK_SIZE = (int) Batcher.envLong("BULK_SIZE", 100);
+
+  public static void main(String[] args) throws Exception {
+    Client restateClient = Client.connect(RESTATE_URL);
+    String runId = UUID.randomUUID().toString().substring(0, 8);
+
+    System.out.printf("%-12s %12s %12s%n", "", "seconds", "items/s");
+    for (int bulkSize : new int[] {1, BULK_SIZE}) {
+      // A new key per run, so the metrics start from zero
+      String key = "bench-" + runId + "-bulk" + bulkSize;
+      var batcher = restateClient.virtualObjectHandle(Batcher.class, key);
+
+      long start = System.nanoTime();
+      try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+        List<Future<?>> callers = new ArrayList<>();
+        for (int c = 0; c < CONCURRENCY; c++) {
+          int caller = c;
+          callers.add(
+              executor.submit(
+                  () -> {
+                    for (int from = caller * bulkSize;
+                        from < ITEMS;
+                        from += CONCURRENCY * bulkSize) {
+                      if (bulkSize == 1) {
+                        batcher.call(Batcher::receive, "item-" + from);
+                      } else {
+                        List<String> items = new ArrayList<>();
+                        for (int i = from; i < Math.min(from + bulkSize, ITEMS); i++) {
+                          items.add("item-" + i);
+                        }
+                        batcher.call(Batcher::receiveAll, items);
+                      }
+                    }
+                  }));
+        }
+        for (var caller : callers) {
+          caller.get();
+        }
+      }
+
+      // Wait until the last, undersized batch was sent by its timer
+      while (batcher.call(Batcher::getMetrics).response().items() < ITEMS) {
+        Thread.sleep(50);
+      }
+      double seconds = (System.nanoTime() - start) / 1e9;
+      System.out.printf(
+          "%-12s %12.2f %12.0f%n",
+          bulkSize == 1 ? "receive" : "receiveAll", seconds, ITEMS / seconds);
+    }
+  }
+}
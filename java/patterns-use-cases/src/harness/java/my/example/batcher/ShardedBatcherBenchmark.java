@@ -0,0 +1,75 @@
+package my.example.batcher;
+
+import dev.restate.client.Client;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Ingest benchmark for the ShardedBatcher. For every shard count K, sends ITEMS items through the
+ * front door from CONCURRENCY concurrent callers, and measures the time until all shards have
+ * flushed them. Start the batcher service first, see the README.
+ */
+public class ShardedBatcherBenchmark {
+
+  private static final String RESTATE_URL = "http://localhost:8080";
+  private static final int ITEMS = (int) Batcher.envLong("ITEMS", 10_000);
+  private static final int CONCURRENCY = (int) Batcher.envLong("CONCURRENCY", 64);
+  private static final int[] SHARD_COUNTS = {1, 2, 4, 8, 16, 32};
+
+  public static void main(String[] args) throws Exception {
+    Client restateClient = Client.connect(RESTATE_URL);
+    String runId = UUID.randomUUID().toString().substring(0, 8);
+
+    System.out.printf("%8s %12s %12s%n", "shards", "seconds", "items/s");
+    for (int shards : SHARD_COUNTS) {
+      // A new name per run, so the metrics of the shards start from zero
+      String name = "bench-" + runId + "-k" + shards;
+      restateClient
+          .virtualObjectHandle(ShardedBatcher.class, name)
+          .call(ShardedBatcher::setShardCount, shards);
+
+      long start = System.nanoTime();
+      try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+        List<Future<?>> callers = new ArrayList<>();
+        for (int c = 0; c < CONCURRENCY; c++) {
+          int caller = c;
+          callers.add(
+              executor.submit(
+                  () -> {
+                    for (int i = caller; i < ITEMS; i += CONCURRENCY) {
+                      restateClient
+                          .virtualObjectHandle(ShardedBatcher.class, name)
+                          .call(ShardedBatcher::receive, "item-" + i);
+                    }
+                  }));
+        }
+        for (var caller : callers) {
+          caller.get();
+        }
+      }
+
+      // Wait until the shards have flushed all items
+      while (flushedItems(restateClient, name, shards) < ITEMS) {
+        Thread.sleep(50);
+      }
+      double seconds = (System.nanoTime() - start) / 1e9;
+      System.out.printf("%8d %12.2f %12.0f%n", shards, seconds, ITEMS / seconds);
+    }
+  }
+
+  private static long flushedItems(Client restateClient, String name, int shards) {
+    long items = 0;
+    for (int shard = 0; shard < shards; shard++) {
+      items +=
+          restateClient
+              .virtualObjectHandle(Batcher.class, ShardedBatcher.shardKey(name, shard))
+              .call(Batcher::getMetrics)
+              .response()
+              .items();
+    }
+    return items;
+  }
+}
@@ -0,0 +1,149 @@
+package my.example.parallelizework;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Scaling benchmark for the FanOutWorker. For every subtask count, runs one task through the
+ * ingress and prints the runtime, the number of invocations of the fan-out tree, and their journal
+ * sizes: the journal of the root invocation, and the largest journal in the tree. The subtask
+ * counts only grow, so the largest journal of all FanOutWorker invocations so far is the one of the
+ * current run.
+ *
+ * <p>The time per subtask is the overhead of the fan-out. Every subtask count runs twice: once with
+ * every subtask in its own runSubtask invocation (remote), and once with every subtask in a
+ * Restate.runAsync block of its parent (local), by overriding the local cost threshold of the task.
+ * The difference of their time per subtask is the overhead of a separate invocation, to tune
+ * FANOUT_LOCAL_COST_THRESHOLD with.
+ *
+ * <p>Start the worker with SUBTASK_MAX_SLEEP_SECONDS=0, so the runtime is the fan-out overhead and
+ * not the sleeps of the subtasks. The journal sizes are read from the sys_invocation table of the
+ * admin API, so the benchmark enables journal retention for the FanOutWorker before it starts.
+ */
+public class FanOutScalingBenchmark {
+
+  private static final String INGRESS_URL =
+      System.getenv("RESTATE_INGRESS_URL") != null
+          ? System.getenv("RESTATE_INGRESS_URL")
+          : "http://localhost:8080";
+  private static final String ADMIN_URL =
+      System.getenv("RESTATE_ADMIN_URL") != null
+          ? System.getenv("RESTATE_ADMIN_URL")
+          : "http://localhost:9070";
+  private static final int[] SUBTASK_COUNTS = {10, 100, 1_000, 10_000, 100_000};
+  // Cost thresholds that run every subtask remotely, and every subtask locally
+  private static final Map<String, Integer> MODES = new LinkedHashMap<>();
+
+  static {
+    MODES.put("remote", 0);
+    MODES.put("local", Integer.MAX_VALUE);
+  }
+
+  private static final HttpClient httpClient = HttpClient.newHttpClient();
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  public static void main(String[] args) throws Exception {
+    patch(ADMIN_URL + "/services/FanOutWorker", "{\"journal_retention\":\"1h\"}");
+
+    System.out.printf(
+        "%10s %8s %10s %14s %12s %16s %16s%n",
+        "subtasks", "mode", "seconds", "ms/subtask", "invocations", "root journal", "max journal");
+    for (int subtasks : SUBTASK_COUNTS) {
+      String task =
+          IntStream.range(0, subtasks).mapToObj(i -> "t" + i).collect(Collectors.joining(","));
+      Map<String, Double> msPerSubtask = new LinkedHashMap<>();
+      for (var mode : MODES.entrySet()) {
+        String idempotencyKey = "fanout-bench-" + UUID.randomUUID();
+        var before = stats();
+
+        long start = System.nanoTime();
+        post(
+            INGRESS_URL + "/FanOutWorker/run",
+            mapper.writeValueAsString(
+                Map.of("description", task, "localCostThreshold", mode.getValue())),
+            idempotencyKey);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        msPerSubtask.put(mode.getKey(), seconds * 1000 / subtasks);
+
+        // Let the completed invocations show up in the table
+        Thread.sleep(1000);
+        var after = stats();
+        var root =
+            query(
+                "SELECT journal_size FROM sys_invocation WHERE target_service_name ="
+                    + " 'FanOutWorker' AND idempotency_key = '"
+                    + idempotencyKey
+                    + "'");
+        System.out.printf(
+            "%10d %8s %10.2f %14.3f %12d %16d %16d%n",
+            subtasks,
+            mode.getKey(),
+            seconds,
+            msPerSubtask.get(mode.getKey()),
+            after.path("invocations").asLong() - before.path("invocations").asLong(),
+            root.path(0).path("journal_size").asLong(),
+            after.path("max_journal").asLong());
+      }
+      System.out.printf(
+          "%10d %8s %10s %14.3f%n",
+          subtasks, "overhead", "", msPerSubtask.get("remote") - msPerSubtask.get("local"));
+    }
+  }
+
+  private static JsonNode stats() throws IOException, InterruptedException {
+    return query(
+            "SELECT count(*) AS invocations, max(journal_size) AS max_journal FROM sys_invocation"
+                + " WHERE target_service_name = 'FanOutWorker'")
+        .path(0);
+  }
+
+  private static JsonNode query(String sql) throws IOException, InterruptedException {
+    var request =
+        HttpRequest.newBuilder(URI.create(ADMIN_URL + "/query"))
+            .header("content-type", "application/json")
+            .header("accept", "application/json")
+            .POST(
+                HttpRequest.BodyPublishers.ofString(
+                    mapper.writeValueAsString(Map.of("query", sql))))
+            .build();
+    return mapper.readTree(send(request)).path("rows");
+  }
+
+  private static void post(String url, String body, String idempotencyKey)
+      throws IOException, InterruptedException {
+    send(
+        HttpRequest.newBuilder(URI.create(url))
+            .header("content-type", "application/json")
+            .header("idempotency-key", idempotencyKey)
+            .timeout(Duration.ofHours(1))
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build());
+  }
+
+  private static void patch(String url, String body) throws IOException, InterruptedException {
+    send(
+        HttpRequest.newBuilder(URI.create(url))
+            .header("content-type", "application/json")
+            .method("PATCH", HttpRequest.BodyPublishers.ofString(body))
+            .build());
+  }
+
+  private static String send(HttpRequest request) throws IOException, InterruptedException {
+    var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    if (response.statusCode() >= 300) {
+      throw new IOException("Request to " + request.uri() + " failed: " + response.body());
+    }
+    return response.body();
+  }
+}
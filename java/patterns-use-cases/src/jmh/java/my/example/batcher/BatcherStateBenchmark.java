@@ -0,0 +1,166 @@
+package my.example.batcher;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.restate.sdk.common.StateKey;
+import dev.restate.serde.TypeRef;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The state manipulation of the Batcher for every received item. Compares the state bytes that a
+ * receive writes when the batch is one list value with the per-item keys of the Batcher, and
+ * measures the bookkeeping of a flush: the adaptive policy and the metrics update.
+ *
+ * <p>Both layouts run against an in-memory State that serializes every value it stores, like the
+ * Restate state does, and counts the bytes of every value that gets set. The per-item keys run the
+ * state part of the Batcher receive handler, including the flush of every full batch.
+ *
+ * <p>Besides the time per operation, the state benchmarks report the bytesPerOp counter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatcherStateBenchmark {
+
+  private static final StateKey<List<String>> BATCH_LIST =
+      StateKey.of("batch-list", new TypeRef<>() {});
+
+  @Param({"10", "100", "1000"})
+  public int batchSize;
+
+  private InMemoryState listState;
+  private InMemoryState itemKeysState;
+  private AdaptiveBatchPolicy.Settings fixed;
+  private List<String> lastBatch;
+  private int count;
+  private AdaptiveBatchPolicy policy;
+  private AdaptiveBatchPolicy.Settings settings;
+  private Batcher.BatcherMetrics metrics;
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class WrittenBytes {
+    public long bytes;
+    public long operations;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      bytes = 0;
+      operations = 0;
+    }
+
+    public double bytesPerOp() {
+      return operations == 0 ? 0 : (double) bytes / operations;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    listState = new InMemoryState();
+    itemKeysState = new InMemoryState();
+    fixed = new AdaptiveBatchPolicy.Settings(batchSize, 1000, 0);
+    count = 0;
+    policy = new AdaptiveBatchPolicy(1000, batchSize);
+    settings = policy.initial();
+    metrics = Batcher.BatcherMetrics.EMPTY;
+  }
+
+  /** A batch in one list value: read the list, add the item and write the whole list back. */
+  @Benchmark
+  public Object receiveIntoListValue(WrittenBytes written) {
+    long before = listState.writtenBytes;
+    List<String> batch = listState.get(BATCH_LIST).orElseGet(ArrayList::new);
+    batch.add("item-" + count++);
+    if (batch.size() >= batchSize) {
+      lastBatch = new ArrayList<>(batch);
+      batch.clear();
+    }
+    listState.set(BATCH_LIST, batch);
+
+    written.bytes += listState.writtenBytes - before;
+    written.operations++;
+    return batch;
+  }
+
+  /** The Batcher: write the item under its own key and the count, or take the full batch. */
+  @Benchmark
+  public Object receiveIntoItemKeys(WrittenBytes written) {
+    long before = itemKeysState.writtenBytes;
+    var stored =
+        Batcher.storeItems(
+            itemKeysState,
+            List.of("item-" + count++),
+            () -> fixed,
+            (batch, batchSettings, hadTimer) -> lastBatch = batch);
+
+    written.bytes += itemKeysState.writtenBytes - before;
+    written.operations++;
+    return stored;
+  }
+
+  @Benchmark
+  public Object flushBookkeeping() {
+    settings = policy.next(settings, batchSize, 100);
+    metrics = metrics.withFlush(batchSize, Batcher.FlushReason.SIZE, false, 1.0, settings);
+    return metrics;
+  }
+
+  /** Stores every value serialized with Jackson, and deserializes it again on every read. */
+  static class InMemoryState implements dev.restate.sdk.State {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Map<String, Map.Entry<byte[], Class<?>>> values = new HashMap<>();
+    long writtenBytes;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> get(StateKey<T> key) {
+      var value = values.get(key.name());
+      if (value == null) {
+        return Optional.empty();
+      }
+      try {
+        return Optional.of((T) MAPPER.readValue(value.getKey(), value.getValue()));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public <T> void set(StateKey<T> key, T value) {
+      try {
+        var bytes = MAPPER.writeValueAsBytes(value);
+        writtenBytes += bytes.length;
+        values.put(key.name(), Map.entry(bytes, value.getClass()));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public void clear(StateKey<?> key) {
+      values.remove(key.name());
+    }
+
+    @Override
+    public void clearAll() {
+      values.clear();
+    }
+
+    @Override
+    public Collection<String> getAllKeys() {
+      return values.keySet();
+    }
+  }
+}
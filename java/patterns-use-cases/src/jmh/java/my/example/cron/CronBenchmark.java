@@ -0,0 +1,59 @@
+package my.example.cron;
+
+import static com.cronutils.model.CronType.UNIX;
+
+import com.cronutils.model.definition.CronDefinitionBuilder;
+import com.cronutils.model.time.ExecutionTime;
+import com.cronutils.parser.CronParser;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The cron computations of scheduleNextExecution, which runs on every execution of a CronJob: parse
+ * the expression and build its ExecutionTime, and compute the next execution time from it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CronBenchmark {
+
+  @Param({"* * * * *", "0 0 * * *", "*/5 9-17 * * 1-5", "15,45 */2 1,15 * *"})
+  public String expression;
+
+  private CronParser parser;
+  private ExecutionTime executionTime;
+  private ZonedDateTime now;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    parser = new CronParser(CronDefinitionBuilder.instanceDefinitionFor(UNIX));
+    executionTime = ExecutionTime.forCron(parser.parse(expression));
+    now = ZonedDateTime.now();
+  }
+
+  /** Parse, and compute the delay and the next time, as a Job without the schedule cache. */
+  @Benchmark
+  public Object parseAndNextExecution() {
+    var parsed = ExecutionTime.forCron(parser.parse(expression));
+    return new Object[] {parsed.timeToNextExecution(now), parsed.nextExecution(now)};
+  }
+
+  @Benchmark
+  public Object parse() {
+    return ExecutionTime.forCron(parser.parse(expression));
+  }
+
+  @Benchmark
+  public Object nextExecution() {
+    return new Object[] {executionTime.timeToNextExecution(now), executionTime.nextExecution(now)};
+  }
+
+  @Benchmark
+  public Object createParser() {
+    return new CronParser(CronDefinitionBuilder.instanceDefinitionFor(UNIX));
+  }
+}
@@ -0,0 +1,62 @@
+package my.example.cron;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The request that a CronJob builds on every execution, with Cron's own encodePayload and
+ * taskRequest. Compares encoding the payload on every execution, which is what execute still does
+ * for jobs created before the payload was stored encoded, with the payload that was encoded once
+ * when the job was created.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CronDispatchBenchmark {
+
+  @Param({"16", "1024"})
+  public int payloadSize;
+
+  @Param({"STRING", "JSON"})
+  public Cron.PayloadEncoding payloadEncoding;
+
+  private Cron.JobRequest job;
+  private byte[] encodedPayload;
+  private ZonedDateTime scheduled;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    var payload =
+        payloadEncoding == Cron.PayloadEncoding.JSON
+            ? "{\"data\":\"" + "x".repeat(Math.max(0, payloadSize - 11)) + "\"}"
+            : "x".repeat(payloadSize);
+    job =
+        new Cron.JobRequest(
+            "* * * * *",
+            "TaskService",
+            "executeTask",
+            Optional.empty(),
+            Optional.of(payload),
+            Optional.of(payloadEncoding),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty());
+    encodedPayload = Cron.encodePayload(job);
+    scheduled = ZonedDateTime.now();
+  }
+
+  @Benchmark
+  public Object encodePerExecution() {
+    return Cron.Job.taskRequest(job, Cron.encodePayload(job), scheduled, 1);
+  }
+
+  @Benchmark
+  public Object preEncoded() {
+    return Cron.Job.taskRequest(job, encodedPayload, scheduled, 1);
+  }
+}
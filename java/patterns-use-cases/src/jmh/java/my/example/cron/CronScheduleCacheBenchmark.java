@@ -0,0 +1,65 @@
+package my.example.cron;
+
+import static com.cronutils.model.CronType.UNIX;
+
+import com.cronutils.model.definition.CronDefinitionBuilder;
+import com.cronutils.model.time.ExecutionTime;
+import com.cronutils.parser.CronParser;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Throughput of the next execution computation of a CronJob, with the expression parsed on every
+ * execution as before, and with the process-wide schedule cache of Cron. Runs on several threads,
+ * like jobs that fire at the same time.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class CronScheduleCacheBenchmark {
+
+  // Distinct expressions of the jobs that fire
+  @Param({"1", "100"})
+  public int expressions;
+
+  private String[] cronExpressions;
+  private CronParser parser;
+  private ZonedDateTime now;
+
+  @State(Scope.Thread)
+  public static class Job {
+    int next;
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    cronExpressions = new String[expressions];
+    for (int i = 0; i < expressions; i++) {
+      cronExpressions[i] = (i % 60) + " " + (i / 60 % 24) + " * * *";
+    }
+    parser = new CronParser(CronDefinitionBuilder.instanceDefinitionFor(UNIX));
+    now = ZonedDateTime.now();
+  }
+
+  @Benchmark
+  public Object uncached(Job job) {
+    var executionTime = ExecutionTime.forCron(parser.parse(nextExpression(job)));
+    return new Object[] {executionTime.timeToNextExecution(now), executionTime.nextExecution(now)};
+  }
+
+  @Benchmark
+  public Object cached(Job job) {
+    var executionTime = Cron.cachedExecutionTime(nextExpression(job));
+    return new Object[] {executionTime.timeToNextExecution(now), executionTime.nextExecution(now)};
+  }
+
+  private String nextExpression(Job job) {
+    job.next = (job.next + 1) % cronExpressions.length;
+    return cronExpressions[job.next];
+  }
+}
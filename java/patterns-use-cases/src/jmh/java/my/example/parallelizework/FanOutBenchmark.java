@@ -0,0 +1,72 @@
+package my.example.parallelizework;
+
+import static my.example.parallelizework.utils.Utils.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import my.example.parallelizework.utils.Result;
+import my.example.parallelizework.utils.SubTask;
+import my.example.parallelizework.utils.SubTaskResult;
+import my.example.parallelizework.utils.Task;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The pure Java parts of the FanOutWorker around the durable calls: splitting a task, collecting
+ * and aggregating the results, and folding them incrementally with the result combiner.
+ *
+ * <p>The jmh log configuration only logs warnings, so the aggregation doesn't log its result.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FanOutBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int subtasks;
+
+  private Task task;
+  private List<SubTaskResult> results;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    task =
+        new Task(
+            IntStream.range(0, subtasks)
+                .mapToObj(i -> "task-" + i)
+                .collect(Collectors.joining(",")),
+            null,
+            null);
+    results = split(task).stream().map(s -> new SubTaskResult(s.description() + ": DONE")).toList();
+  }
+
+  @Benchmark
+  public List<SubTask> splitTask() {
+    return split(task);
+  }
+
+  @Benchmark
+  public Result aggregateResults() {
+    return aggregate(results);
+  }
+
+  @Benchmark
+  public SubTaskResult reduceIncrementally() {
+    return reduceAsTree(results);
+  }
+
+  // Folds like the invocations of the fan-out tree: each one folds at most CHUNK_SIZE results, and
+  // the results of the chunks get folded again in their parent
+  private static SubTaskResult reduceAsTree(List<SubTaskResult> results) {
+    var accumulator = JOIN_RESULTS.identity();
+    for (var group : FanOutWorker.group(results)) {
+      var result = group.size() > 1 ? reduceAsTree(group) : group.get(0);
+      accumulator = JOIN_RESULTS.combine(accumulator, result);
+    }
+    return accumulator;
+  }
+}
@@ -0,0 +1,54 @@
+package my.example.signalspayments;
+
+import dev.restate.sdk.common.TerminalException;
+import java.util.concurrent.TimeUnit;
+import my.example.signalspayments.utils.PaymentUtils;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The verification steps of the PaymentService, for valid requests and for rejected ones. The
+ * rejections throw a TerminalException, which makes them much more expensive than the happy path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PaymentUtilsBenchmark {
+
+  private final PaymentService.PaymentRequest valid =
+      new PaymentService.PaymentRequest(100L, "pm_card_visa", false);
+  private final PaymentService.PaymentRequest invalid =
+      new PaymentService.PaymentRequest(0L, "pm_card_visa", false);
+
+  @Benchmark
+  public void verifyValidRequest() {
+    PaymentUtils.verifyPaymentRequest(valid);
+  }
+
+  @Benchmark
+  public Object verifyInvalidRequest() {
+    try {
+      PaymentUtils.verifyPaymentRequest(invalid);
+      return null;
+    } catch (TerminalException e) {
+      return e;
+    }
+  }
+
+  @Benchmark
+  public void ensureSucceeded() {
+    PaymentUtils.ensureSuccess("succeeded");
+  }
+
+  @Benchmark
+  public Object ensureDeclined() {
+    try {
+      PaymentUtils.ensureSuccess("canceled");
+      return null;
+    } catch (TerminalException e) {
+      return e;
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package my.example.batcher;
+
+/**
+ * Picks the batch size and the flush interval of the adaptive Batcher from the rate at which items
+ * arrive.
+ *
+ * <p>Batches are sized to fill in about half of the latency SLO. Under sustained load the batches
+ * grow, when the load drops they shrink down to a single item, which gets sent right away. The
+ * flush interval is the time a batch is expected to take to fill, with some slack, and never more
+ * than the SLO.
+ */
+class AdaptiveBatchPolicy {
+
+  // Weight of the newest observation in the smoothed arrival rate
+  private static final double RATE_SMOOTHING = 0.5;
+  private static final double FLUSH_INTERVAL_SLACK = 1.5;
+
+  record Settings(int batchSize, long flushIntervalMillis, double itemsPerMilli) {}
+
+  private final long latencySloMillis;
+  private final int maxBatch;
+
+  AdaptiveBatchPolicy(long latencySloMillis, int maxBatch) {
+    this.latencySloMillis = latencySloMillis;
+    this.maxBatch = maxBatch;
+  }
+
+  Settings initial() {
+    return new Settings(1, latencySloMillis, 0);
+  }
+
+  /** Computes the settings for the next batch, after a batch of flushedItems was sent. */
+  Settings next(Settings current, int flushedItems, long millisSinceLastFlush) {
+    double observedRate = flushedItems / (double) Math.max(millisSinceLastFlush, 1);
+    double rate =
+        current.itemsPerMilli() == 0
+            ? observedRate
+            : RATE_SMOOTHING * observedRate + (1 - RATE_SMOOTHING) * current.itemsPerMilli();
+
+    int batchSize = (int) Math.max(1, Math.min(maxBatch, Math.round(rate * latencySloMillis / 2)));
+    long flushInterval =
+        Math.max(
+            1,
+            Math.min(latencySloMillis, (long) Math.ceil(FLUSH_INTERVAL_SLACK * batchSize / rate)));
+    return new Settings(batchSize, flushInterval, rate);
+  }
+}
@@ -0,0 +1,84 @@
+package my.example.batcher;
+
+import dev.restate.sdk.Restate;
+import dev.restate.sdk.annotation.Handler;
+import dev.restate.sdk.annotation.VirtualObject;
+import dev.restate.sdk.common.StateKey;
+import dev.restate.sdk.common.TerminalException;
+import dev.restate.serde.TypeRef;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Merges the batches of a group of shards of a ShardedBatcher into larger batches for the
+ * BatchReceiver: once BATCHER_MERGED_BATCH_SIZE items (default 100) came together, or when the
+ * oldest batch waited for MAX_MERGE_WAIT. Keyed by ShardedBatcher.mergerKey.
+ */
+@VirtualObject
+public class BatchMerger {
+
+  private static final Logger LOG = LogManager.getLogger(BatchMerger.class);
+  private static final Duration MAX_MERGE_WAIT = Duration.ofSeconds(1);
+  private static final int MERGED_BATCH_SIZE =
+      (int) Batcher.envLong("BATCHER_MERGED_BATCH_SIZE", 100);
+
+  // Every shard batch is stored under its own key, next to the number of batches and items
+  private static final StateKey<Integer> BATCH_COUNT = StateKey.of("batch-count", Integer.TYPE);
+  private static final StateKey<Integer> ITEM_COUNT = StateKey.of("item-count", Integer.TYPE);
+  // Incremented on every flush, a timer of an earlier epoch is a no-op (see Batcher)
+  private static final StateKey<Long> EPOCH = StateKey.of("epoch", Long.TYPE);
+
+  @Handler
+  public void add(List<String> batch) {
+    var state = Restate.state();
+    int batches = state.get(BATCH_COUNT).orElse(0);
+    int items = state.get(ITEM_COUNT).orElse(0) + batch.size();
+    state.set(batchKey(batches), batch);
+    batches++;
+
+    if (items >= MERGED_BATCH_SIZE) {
+      LOG.info("Sending merged batch as it reached {} items", items);
+      flush(batches);
+      return;
+    }
+
+    state.set(BATCH_COUNT, batches);
+    state.set(ITEM_COUNT, items);
+    if (batches == 1) {
+      Restate.virtualObjectHandle(BatchMerger.class, Restate.key())
+          .send(BatchMerger::expire, state.get(EPOCH).orElse(0L), MAX_MERGE_WAIT);
+    }
+  }
+
+  @Handler
+  public void expire(long epoch) {
+    if (Restate.state().get(EPOCH).orElse(0L) != epoch) {
+      return;
+    }
+    int batches = Restate.state().get(BATCH_COUNT).orElseThrow(TerminalException::new);
+    LOG.info("Sending {} merged batches as the timer fired", batches);
+    flush(batches);
+  }
+
+  private void flush(int batches) {
+    var state = Restate.state();
+    List<String> merged = new ArrayList<>();
+    for (int i = 0; i < batches; i++) {
+      merged.addAll(state.get(batchKey(i)).orElseThrow(TerminalException::new));
+    }
+    for (int i = 0; i < batches; i++) {
+      state.clear(batchKey(i));
+    }
+    state.clear(BATCH_COUNT);
+    state.clear(ITEM_COUNT);
+    state.set(EPOCH, state.get(EPOCH).orElse(0L) + 1);
+    Restate.service(BatchReceiver.class).receive(merged);
+  }
+
+  private static StateKey<List<String>> batchKey(int index) {
+    return StateKey.of("batch-" + index, new TypeRef<List<String>>() {});
+  }
+}
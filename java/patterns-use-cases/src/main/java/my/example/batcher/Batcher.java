@@ -1,15 +1,18 @@
 package my.example.batcher;
 
-import dev.restate.sdk.InvocationHandle;
 import dev.restate.sdk.Restate;
+import dev.restate.sdk.State;
 import dev.restate.sdk.annotation.Handler;
+import dev.restate.sdk.annotation.Shared;
 import dev.restate.sdk.annotation.VirtualObject;
 import dev.restate.sdk.common.StateKey;
 import dev.restate.sdk.common.TerminalException;
 import dev.restate.sdk.endpoint.Endpoint;
 import dev.restate.sdk.http.vertx.RestateHttpServer;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -19,50 +22,289 @@ public class Batcher {
   private static final Logger LOG = LogManager.getLogger(Batcher.class);
   private static final Duration MAX_BATCH_WAIT = Duration.ofSeconds(1);
   private static final int MAX_BATCH = 10;
-  private static final StateKey<BatcherState> STATE = StateKey.of("state", BatcherState.class);
 
-  record BatcherState(List<String> items, String expireInvocationId) {}
+  // Set BATCHER_ADAPTIVE=true to size batches to the load instead, so that items are sent within
+  // BATCHER_LATENCY_SLO_MS (default 1000), in batches of at most BATCHER_MAX_ADAPTIVE_BATCH items.
+  private static final boolean ADAPTIVE = "true".equals(System.getenv("BATCHER_ADAPTIVE"));
+  private static final AdaptiveBatchPolicy POLICY =
+      new AdaptiveBatchPolicy(
+          envLong("BATCHER_LATENCY_SLO_MS", 1000),
+          (int) envLong("BATCHER_MAX_ADAPTIVE_BATCH", 1000));
+  private static final AdaptiveBatchPolicy.Settings FIXED =
+      new AdaptiveBatchPolicy.Settings(MAX_BATCH, MAX_BATCH_WAIT.toMillis(), 0);
+
+  // Every item is stored under its own key, so adding an item writes the same amount of state
+  // no matter how large the batch already is.
+  private static final StateKey<Integer> COUNT = StateKey.of("count", Integer.TYPE);
+  // Incremented on every flush. The expire timer of a batch carries the epoch of that batch, so
+  // a timer that fires after its batch was already sent because it was full is a no-op, and the
+  // timer doesn't need to be cancelled.
+  private static final StateKey<Long> EPOCH = StateKey.of("epoch", Long.TYPE);
+  private static final StateKey<AdaptiveBatchPolicy.Settings> SETTINGS =
+      StateKey.of("settings", AdaptiveBatchPolicy.Settings.class);
+  private static final StateKey<Long> LAST_FLUSH_AT = StateKey.of("last-flush-at", Long.TYPE);
+  private static final StateKey<BatcherMetrics> METRICS =
+      StateKey.of("metrics", BatcherMetrics.class);
+  // Only set for the shards of a ShardedBatcher that merges: the BatchMerger to flush into
+  private static final StateKey<String> MERGER = StateKey.of("merger", String.class);
+
+  record MergerItem(String item, String merger) {}
+
+  enum FlushReason {
+    SIZE,
+    TIMER
+  }
+
+  record BatcherMetrics(
+      long batches,
+      long items,
+      long sizeFlushes,
+      long timerFlushes,
+      double averageFill,
+      long timersScheduled,
+      long staleExpires,
+      double runtimeCallsPerBatch,
+      int batchSize,
+      long flushIntervalMillis) {
+
+    static final BatcherMetrics EMPTY = new BatcherMetrics(0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    BatcherMetrics withFlush(
+        int flushedItems,
+        FlushReason reason,
+        boolean hadTimer,
+        double fill,
+        AdaptiveBatchPolicy.Settings next) {
+      long newBatches = batches + 1;
+      long newTimers = timersScheduled + (hadTimer ? 1 : 0);
+      return new BatcherMetrics(
+          newBatches,
+          items + flushedItems,
+          sizeFlushes + (reason == FlushReason.SIZE ? 1 : 0),
+          timerFlushes + (reason == FlushReason.TIMER ? 1 : 0),
+          averageFill + (fill - averageFill) / newBatches,
+          newTimers,
+          staleExpires,
+          runtimeCallsPerBatch(newBatches, newTimers, staleExpires),
+          next.batchSize(),
+          next.flushIntervalMillis());
+    }
+
+    BatcherMetrics withStaleExpire() {
+      return new BatcherMetrics(
+          batches,
+          items,
+          sizeFlushes,
+          timerFlushes,
+          averageFill,
+          timersScheduled,
+          staleExpires + 1,
+          runtimeCallsPerBatch(batches, timersScheduled, staleExpires + 1),
+          batchSize,
+          flushIntervalMillis);
+    }
+
+    // Calls to the runtime for batching: the call to the receiver, the expire timers, and the
+    // invocations of expire that found their batch already sent.
+    private static double runtimeCallsPerBatch(long batches, long timers, long staleExpires) {
+      return batches == 0 ? 0 : (double) (batches + timers + staleExpires) / batches;
+    }
+  }
 
   @Handler
   public void receive(String item) {
-    Restate.state()
-        .get(STATE)
-        .ifPresentOrElse(
-            state -> {
-              LOG.info("Adding item {} to existing batch", item);
-              state.items().add(item);
-              if (state.items().size() == MAX_BATCH) {
-                LOG.info("Sending batch as it reached {} items", MAX_BATCH);
-                // cancel scheduled sending, since we are sending due to item count
-                Restate.invocationHandle(state.expireInvocationId()).cancel();
-                Restate.service(BatchReceiver.class).receive(state.items());
-                Restate.state().clearAll();
-              } else {
-                // write back updated state
-                Restate.state().set(STATE, state);
-              }
-            },
-            () -> {
-              LOG.info("Adding item to new batch, will send in at most {}", MAX_BATCH_WAIT);
-              InvocationHandle<?> invocationId =
-                  Restate.virtualObjectHandle(Batcher.class, Restate.key())
-                      .send(Batcher::expire, MAX_BATCH_WAIT);
-              Restate.state()
-                  .set(STATE, new BatcherState(List.of(item), invocationId.invocationId()));
+    append(List.of(item), null);
+  }
+
+  /**
+   * Adds many items in one invocation. Items that don't fit in the current batch are sent with it
+   * and the rest starts the next batches, as if they had been received one by one.
+   */
+  @Handler
+  public void receiveAll(List<String> items) {
+    append(items, null);
+  }
+
+  /**
+   * Gets called by the ShardedBatcher for its shards when it merges their batches. The batches of
+   * this item get sent to the given BatchMerger instead of the BatchReceiver.
+   */
+  @Handler
+  public void receiveForMerger(MergerItem item) {
+    append(List.of(item.item()), item.merger());
+  }
+
+  private void append(List<String> items, String merger) {
+    var state = Restate.state();
+    var stored =
+        storeItems(
+            state,
+            items,
+            this::currentSettings,
+            (batch, settings, hadTimer) -> {
+              // No need to cancel the expire timer, the flush moves on to the next epoch
+              LOG.info("Sending batch as it reached {} items", batch.size());
+              flush(batch, settings, FlushReason.SIZE, hadTimer, merger);
             });
+    if (stored.items() == 0) {
+      return;
+    }
+
+    if (stored.newBatch()) {
+      // The expire timer flushes the batch later, so it needs to know where to
+      if (merger != null) {
+        state.set(MERGER, merger);
+      }
+      var settings = currentSettings();
+      LOG.info(
+          "Adding {} items to new batch, will send in at most {} ms",
+          stored.items(),
+          settings.flushIntervalMillis());
+      Restate.virtualObjectHandle(Batcher.class, Restate.key())
+          .send(
+              Batcher::expire,
+              state.get(EPOCH).orElse(0L),
+              Duration.ofMillis(settings.flushIntervalMillis()));
+    } else {
+      LOG.info("Adding {} items to existing batch", stored.items());
+    }
+  }
+
+  record Stored(int items, boolean newBatch) {}
+
+  interface FullBatch {
+    void flush(List<String> items, AdaptiveBatchPolicy.Settings settings, boolean hadTimer);
+  }
+
+  /**
+   * The state part of append. Adds the items to the current batch, and takes every batch that fills
+   * up out of the state and passes it to onFull. Batches that fill up within one call are sent
+   * without storing their items first. Returns how many items got stored in the current batch.
+   */
+  static Stored storeItems(
+      State state,
+      List<String> items,
+      Supplier<AdaptiveBatchPolicy.Settings> settings,
+      FullBatch onFull) {
+    var current = settings.get();
+    // Items already stored for the current batch, and the ones this call adds to it
+    int storedCount = state.get(COUNT).orElse(0);
+    List<String> added = new ArrayList<>();
+
+    for (var item : items) {
+      added.add(item);
+      if (storedCount + added.size() >= current.batchSize()) {
+        // The batch has an expire timer if it was started by an earlier invocation
+        onFull.flush(takeBatch(state, storedCount, added), current, storedCount > 0);
+        current = settings.get();
+        storedCount = 0;
+        added = new ArrayList<>();
+      }
+    }
+
+    for (int i = 0; i < added.size(); i++) {
+      state.set(itemKey(storedCount + i), added.get(i));
+    }
+    if (!added.isEmpty()) {
+      state.set(COUNT, storedCount + added.size());
+    }
+    return new Stored(added.size(), storedCount == 0);
+  }
+
+  /**
+   * Takes the stored items of the batch out of the state, followed by the items that were not
+   * stored yet, and moves on to the next epoch.
+   */
+  static List<String> takeBatch(State state, int storedCount, List<String> notStored) {
+    List<String> items = new ArrayList<>(storedCount + notStored.size());
+    for (int i = 0; i < storedCount; i++) {
+      items.add(state.get(itemKey(i)).orElseThrow(TerminalException::new));
+      state.clear(itemKey(i));
+    }
+    items.addAll(notStored);
+    state.clear(COUNT);
+    state.set(EPOCH, state.get(EPOCH).orElse(0L) + 1);
+    return items;
   }
 
   @Handler
-  public void expire() {
-    // if there is no state expire should never be called (meaning a bug),
+  public void expire(long epoch) {
+    var state = Restate.state();
+    if (state.get(EPOCH).orElse(0L) != epoch) {
+      // The batch of this timer was already sent because it was full
+      state.set(METRICS, getMetrics().withStaleExpire());
+      return;
+    }
+    // if there is no state expire should never be called for the current epoch (meaning a bug),
     // so throw TerminalException since there is no recovery
-    var state = Restate.state().get(STATE).orElseThrow(TerminalException::new);
-    LOG.info("Sending batch with {} items as the timer fired", state.items().size());
-    Restate.service(BatchReceiver.class).receive(state.items());
-    Restate.state().clearAll();
+    int count = state.get(COUNT).orElseThrow(TerminalException::new);
+    LOG.info("Sending batch with {} items as the timer fired", count);
+    flush(
+        takeBatch(state, count, List.of()),
+        currentSettings(),
+        FlushReason.TIMER,
+        true,
+        state.get(MERGER).orElse(null));
+  }
+
+  /**
+   * Batch counts, flush reasons, the average fill of the batches, the runtime calls per batch, and
+   * the current settings.
+   */
+  @Shared
+  public BatcherMetrics getMetrics() {
+    return Restate.state().get(METRICS).orElse(BatcherMetrics.EMPTY);
+  }
+
+  /** Sends the items of the batch, after takeBatch took them out of the state. */
+  private void flush(
+      List<String> items,
+      AdaptiveBatchPolicy.Settings settings,
+      FlushReason reason,
+      boolean hadTimer,
+      String merger) {
+    var state = Restate.state();
+    int count = items.size();
+
+    if (merger != null) {
+      state.clear(MERGER);
+      Restate.virtualObjectHandle(BatchMerger.class, merger).send(BatchMerger::add, items);
+    } else {
+      Restate.service(BatchReceiver.class).receive(items);
+    }
+
+    var next = settings;
+    if (ADAPTIVE) {
+      long now = Restate.run("now", Long.class, System::currentTimeMillis);
+      var lastFlushAt = state.get(LAST_FLUSH_AT);
+      if (lastFlushAt.isPresent()) {
+        next = POLICY.next(settings, count, now - lastFlushAt.get());
+        state.set(SETTINGS, next);
+      }
+      state.set(LAST_FLUSH_AT, now);
+    }
+
+    double fill = (double) count / settings.batchSize();
+    state.set(METRICS, getMetrics().withFlush(count, reason, hadTimer, fill, next));
+  }
+
+  private AdaptiveBatchPolicy.Settings currentSettings() {
+    return ADAPTIVE ? Restate.state().get(SETTINGS).orElse(POLICY.initial()) : FIXED;
+  }
+
+  private static StateKey<String> itemKey(int index) {
+    return StateKey.of("item-" + index, String.class);
+  }
+
+  static long envLong(String name, long defaultValue) {
+    return System.getenv(name) != null ? Long.parseLong(System.getenv(name)) : defaultValue;
   }
 
   public static void main(String[] args) {
-    RestateHttpServer.listen(Endpoint.bind(new Batcher()).bind(new BatchReceiver()));
+    RestateHttpServer.listen(
+        Endpoint.bind(new Batcher())
+            .bind(new BatchReceiver())
+            .bind(new ShardedBatcher())
+            .bind(new BatchMerger()));
   }
 }
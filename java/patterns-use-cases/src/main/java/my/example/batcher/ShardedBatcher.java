@@ -0,0 +1,69 @@
+package my.example.batcher;
+
+import dev.restate.sdk.Restate;
+import dev.restate.sdk.annotation.Handler;
+import dev.restate.sdk.annotation.Shared;
+import dev.restate.sdk.annotation.VirtualObject;
+import dev.restate.sdk.common.StateKey;
+import dev.restate.sdk.common.TerminalException;
+
+/**
+ * Front door for a batcher that is spread over several Batcher objects. Items sent to one Batcher
+ * key are processed one after the other, so one key limits the ingest rate. This object hashes
+ * every item to one of K shards, each a Batcher with its own key, which batch and flush
+ * independently.
+ *
+ * <p>The receive handler is shared, so it routes items concurrently. The number of shards is kept
+ * in state and can be changed at runtime; items already in a shard are still sent from there.
+ *
+ * <p>With BATCHER_MERGE_SHARD_BATCHES=true, the shards flush into BatchMergers instead, which merge
+ * their batches into larger calls to the BatchReceiver. Every BatchMerger serves a group of
+ * BATCHER_SHARDS_PER_MERGER shards (default 4), so the merge stage is sharded as well.
+ */
+@VirtualObject
+public class ShardedBatcher {
+
+  static final boolean MERGE_SHARD_BATCHES =
+      "true".equals(System.getenv("BATCHER_MERGE_SHARD_BATCHES"));
+
+  private static final int DEFAULT_SHARDS = (int) Batcher.envLong("BATCHER_SHARDS", 4);
+  private static final int SHARDS_PER_MERGER =
+      (int) Batcher.envLong("BATCHER_SHARDS_PER_MERGER", 4);
+  private static final String SHARD_SEPARATOR = "-shard-";
+  private static final String MERGER_SEPARATOR = "-merger-";
+  private static final StateKey<Integer> SHARDS = StateKey.of("shards", Integer.TYPE);
+
+  @Shared
+  public void receive(String item) {
+    int shards = Restate.state().get(SHARDS).orElse(DEFAULT_SHARDS);
+    int shard = Math.floorMod(item.hashCode(), shards);
+    var batcher = Restate.virtualObjectHandle(Batcher.class, shardKey(Restate.key(), shard));
+    if (MERGE_SHARD_BATCHES) {
+      batcher.send(
+          Batcher::receiveForMerger, new Batcher.MergerItem(item, mergerKey(Restate.key(), shard)));
+    } else {
+      batcher.send(Batcher::receive, item);
+    }
+  }
+
+  @Handler
+  public void setShardCount(int shards) {
+    if (shards < 1) {
+      throw new TerminalException("The number of shards must be at least 1");
+    }
+    Restate.state().set(SHARDS, shards);
+  }
+
+  @Shared
+  public int getShardCount() {
+    return Restate.state().get(SHARDS).orElse(DEFAULT_SHARDS);
+  }
+
+  static String shardKey(String name, int shard) {
+    return name + SHARD_SEPARATOR + shard;
+  }
+
+  static String mergerKey(String name, int shard) {
+    return name + MERGER_SEPARATOR + shard / SHARDS_PER_MERGER;
+  }
+}
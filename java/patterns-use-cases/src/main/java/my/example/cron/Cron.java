@@ -5,15 +5,32 @@ import static com.cronutils.model.CronType.UNIX;
 import com.cronutils.model.definition.CronDefinitionBuilder;
 import com.cronutils.model.time.ExecutionTime;
 import com.cronutils.parser.CronParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.restate.common.Request;
 import dev.restate.common.Target;
+import dev.restate.sdk.DurableFuture;
 import dev.restate.sdk.Restate;
 import dev.restate.sdk.annotation.*;
 import dev.restate.sdk.common.StateKey;
 import dev.restate.sdk.common.TerminalException;
-import dev.restate.serde.TypeTag;
+import dev.restate.serde.Serde;
+import dev.restate.serde.TypeRef;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.IntFunction;
+import my.example.utils.DurableFutures;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 /*
  * A distributed cron service built with Restate that schedules tasks based on cron expressions.
@@ -28,17 +45,117 @@ import java.util.Optional;
  * 1. Send requests to CronInitiator.create() to start new jobs
  * 2. Each job gets a unique ID and runs as a CronJob virtual object
  * 3. Jobs automatically reschedule themselves after each execution
+ *
+ * With CRON_SCHEDULER=wheel, jobs don't schedule a delayed call to themselves. Instead, they add
+ * themselves to the CronSlot object of their next execution time, like in a timing wheel. Every
+ * slot covers CRON_WHEEL_SLOT_SECONDS (default 60) seconds. A slot has a single timer, that fires at
+ * the end of the slot and sends execute to all jobs in it. So the number of timers and of
+ * scheduling invocations depends on the number of slots, not on the number of jobs.
  */
 public class Cron {
 
+  private static final Logger LOG = LogManager.getLogger(Cron.class);
+
   public record JobRequest(
       String cronExpression, // e.g. "0 0 * * *" (every day at midnight)
       String service,
       String method, // Handler to execute with this schedule
       Optional<String> key, // Optional Virtual Object key of the task to call
-      Optional<String> payload) {} // Optional data to pass to the handler
+      Optional<String> payload, // Optional data to pass to the handler
+      Optional<PayloadEncoding> payloadEncoding, // How to send the payload, default STRING
+      Optional<MisfirePolicy> misfirePolicy, // What to do with missed executions, see below
+      Optional<Integer> catchUpPerMinute, // Rate cap of FIRE_ALL, default 10
+      Optional<Boolean> allowOverlap) {} // Default true, false waits for the task to complete
+
+  /*
+   * Executions are missed when the service was down, when the job was stuck behind a backlog, or
+   * when a task that doesn't allow overlap ran longer than the interval of the job.
+   */
+  public enum MisfirePolicy {
+    // Run the late execution once, and drop the others that were missed (the default)
+    FIRE_ONCE_AND_SKIP,
+    // Run every missed execution, one by one, at most catchUpPerMinute per minute. After more than
+    // MAX_CATCH_UP missed executions, the job skips ahead instead
+    FIRE_ALL,
+    // Run the late execution once for all missed ones, the task gets their number in the
+    // x-cron-executions header
+    COALESCE
+  }
 
-  public record JobInfo(JobRequest request, String nextExecutionTime, String nextExecutionId) {}
+  // Result of every request of createBatch, in the order of the requests: the job ID, or the error
+  public record JobCreation(String jobId, String error) {}
+
+  public record JobPage(List<String> jobIds, Optional<Integer> nextPage) {}
+
+  // One execution of a task that doesn't allow overlap
+  public record TaskRun(String scheduledTime, int executions) {}
+
+  public enum PayloadEncoding {
+    // The payload is sent as a JSON string
+    STRING,
+    // The payload is JSON, and sent as is
+    JSON,
+    // The payload is base64 encoded binary data, and sent decoded
+    BINARY
+  }
+
+  // The encoded payload is the request body of every execution, encoded once when the job is
+  // created, so executions don't serialize the payload again
+  public record JobInfo(
+      JobRequest request,
+      String nextExecutionTime,
+      String nextExecutionId,
+      byte[] encodedPayload) {}
+
+  private static final boolean WHEEL = "wheel".equals(System.getenv("CRON_SCHEDULER"));
+  private static final long SLOT_SECONDS =
+      System.getenv("CRON_WHEEL_SLOT_SECONDS") != null
+          ? Long.parseLong(System.getenv("CRON_WHEEL_SLOT_SECONDS"))
+          : 60;
+  // Maximum number of jobs that one invocation of CronSlot.fire sends execute to
+  private static final int SLOT_FIRE_BATCH = 1000;
+  private static final Serde<byte[]> JSON_BYTES =
+      Serde.withContentType("application/json", Serde.RAW);
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  // Maximum number of jobs that createBatch and cancelBatch create or cancel at the same time
+  private static final int BATCH_CONCURRENCY =
+      System.getenv("CRON_BATCH_CONCURRENCY") != null
+          ? Integer.parseInt(System.getenv("CRON_BATCH_CONCURRENCY"))
+          : 50;
+  private static final String INDEX_KEY = "jobs";
+  private static final int INDEX_PAGE_SIZE = 100;
+
+  // Jobs with FIRE_ALL that missed more executions than this skip ahead, to not lag forever
+  private static final int MAX_CATCH_UP = 1000;
+
+  // Parsed schedules, shared by all jobs of this process. The expression of a job never changes,
+  // so every execution after the first one skips parsing. Bounded to the most recently used
+  // CRON_SCHEDULE_CACHE_SIZE expressions.
+  private static final CronParser PARSER =
+      new CronParser(CronDefinitionBuilder.instanceDefinitionFor(UNIX));
+  private static final int SCHEDULE_CACHE_SIZE =
+      System.getenv("CRON_SCHEDULE_CACHE_SIZE") != null
+          ? Integer.parseInt(System.getenv("CRON_SCHEDULE_CACHE_SIZE"))
+          : 10_000;
+  private static final Map<String, ExecutionTime> SCHEDULES =
+      Collections.synchronizedMap(
+          new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ExecutionTime> eldest) {
+              return size() > SCHEDULE_CACHE_SIZE;
+            }
+          });
+
+  // Throws IllegalArgumentException for invalid expressions, these are not cached
+  static ExecutionTime cachedExecutionTime(String cronExpression) {
+    var executionTime = SCHEDULES.get(cronExpression);
+    if (executionTime == null) {
+      executionTime = ExecutionTime.forCron(PARSER.parse(cronExpression));
+      SCHEDULES.put(cronExpression, executionTime);
+    }
+    return executionTime;
+  }
 
   @Name("CronJobInitiator")
   @Service
@@ -49,9 +166,60 @@ public class Cron {
       // We can then address this job object by its ID
       var jobId = Restate.random().nextUUID().toString();
       var cronJob = Restate.virtualObject(Job.class, jobId).initiate(request);
+      Restate.virtualObjectHandle(Index.class, INDEX_KEY).send(Index::addAll, List.of(jobId));
       return String.format(
           "Job created with ID %s and next execution time %s", jobId, cronJob.nextExecutionTime());
     }
+
+    // Creates many jobs in one invocation, and adds them to the index at once
+    @Handler
+    public List<JobCreation> createBatch(List<JobRequest> requests) {
+      List<String> jobIds = new ArrayList<>();
+      for (int i = 0; i < requests.size(); i++) {
+        jobIds.add(Restate.random().nextUUID().toString());
+      }
+
+      var errors =
+          callWithWindow(
+              jobIds.size(),
+              i ->
+                  Restate.virtualObjectHandle(Job.class, jobIds.get(i))
+                      .call(Job::initiate, requests.get(i)));
+
+      List<JobCreation> creations = new ArrayList<>();
+      List<String> created = new ArrayList<>();
+      for (int i = 0; i < jobIds.size(); i++) {
+        if (errors.get(i) == null) {
+          creations.add(new JobCreation(jobIds.get(i), null));
+          created.add(jobIds.get(i));
+        } else {
+          creations.add(new JobCreation(null, errors.get(i)));
+        }
+      }
+      Restate.virtualObjectHandle(Index.class, INDEX_KEY).send(Index::addAll, created);
+      return creations;
+    }
+
+    // Returns the error of every job that could not be cancelled, or null. Removes the cancelled
+    // jobs from the index at once, instead of every job removing itself
+    @Handler
+    public List<String> cancelBatch(List<String> jobIds) {
+      var errors =
+          callWithWindow(
+              jobIds.size(),
+              i ->
+                  Restate.virtualObjectHandle(Job.class, jobIds.get(i))
+                      .call(Job::cancelWithoutIndex));
+
+      List<String> cancelled = new ArrayList<>();
+      for (int i = 0; i < jobIds.size(); i++) {
+        if (errors.get(i) == null) {
+          cancelled.add(jobIds.get(i));
+        }
+      }
+      Restate.virtualObjectHandle(Index.class, INDEX_KEY).send(Index::removeAll, cancelled);
+      return errors;
+    }
   }
 
   @Name("CronJob")
@@ -59,34 +227,127 @@ public class Cron {
   public static class Job {
 
     private final StateKey<JobInfo> JOB_STATE = StateKey.of("job-state", JobInfo.class);
-    private final CronParser PARSER =
-        new CronParser(CronDefinitionBuilder.instanceDefinitionFor(UNIX));
+    // Invocation of runTask while a task that doesn't allow overlap is running
+    private final StateKey<String> RUNNING_TASK = StateKey.of("running-task", String.class);
 
     @Handler
     public JobInfo initiate(JobRequest request) {
       if (Restate.state().get(JOB_STATE).isPresent()) {
         throw new TerminalException("Job already exists for this ID");
       }
-      return scheduleNextExecution(request);
+      var now = Restate.run("now", ZonedDateTime.class, ZonedDateTime::now);
+      return scheduleNextExecution(request, encodePayload(request), Optional.empty(), now);
     }
 
     @Handler
     public void execute() {
-      JobRequest request =
-          Restate.state()
-              .get(JOB_STATE)
-              .orElseThrow(() -> new TerminalException("Job not found"))
-              .request;
+      var jobState = Restate.state().get(JOB_STATE);
+      if (jobState.isEmpty()) {
+        // The job was cancelled after its slot fired
+        if (WHEEL) {
+          return;
+        }
+        throw new TerminalException("Job not found");
+      }
+      if (Restate.state().get(RUNNING_TASK).isPresent()) {
+        // The task of the previous execution doesn't allow overlap and still runs, it schedules the
+        // next execution when it completes
+        return;
+      }
+
+      JobRequest request = jobState.get().request;
+      // Jobs created before the payload was stored encoded don't have it yet
+      var encodedPayload =
+          jobState.get().encodedPayload != null
+              ? jobState.get().encodedPayload
+              : encodePayload(request);
+      var executionTime = parseExpression(request.cronExpression);
+      var scheduled = ZonedDateTime.parse(jobState.get().nextExecutionTime);
+      var now = Restate.run("now", ZonedDateTime.class, ZonedDateTime::now);
+
+      int executions = 1;
+      if (request.misfirePolicy.orElse(MisfirePolicy.FIRE_ONCE_AND_SKIP)
+          == MisfirePolicy.COALESCE) {
+        executions += missedExecutions(executionTime, scheduled, now);
+      }
+
+      if (request.allowOverlap.orElse(true)) {
+        Restate.send(taskRequest(request, encodedPayload, scheduled, executions));
+        scheduleNextExecution(request, encodedPayload, Optional.of(scheduled), now);
+        return;
+      }
+
+      // No overlap: the next execution is only scheduled after this one completes, so executions
+      // of a slow task don't queue up. The executions that it misses go by the misfire policy.
+      // The task runs in the shared runTask handler, so it doesn't hold the lock of this job and
+      // cancel doesn't wait for it.
+      var handle =
+          Restate.virtualObjectHandle(Job.class, Restate.key())
+              .send(Job::runTask, new TaskRun(scheduled.toString(), executions));
+      Restate.state().set(RUNNING_TASK, handle.invocationId());
+    }
+
+    @Shared
+    public void runTask(TaskRun run) {
+      var jobState = Restate.state().get(JOB_STATE);
+      if (jobState.isEmpty()) {
+        return;
+      }
+      var request = jobState.get().request;
+      var encodedPayload =
+          jobState.get().encodedPayload != null
+              ? jobState.get().encodedPayload
+              : encodePayload(request);
+      try {
+        Restate.call(
+                taskRequest(
+                    request,
+                    encodedPayload,
+                    ZonedDateTime.parse(run.scheduledTime()),
+                    run.executions()))
+            .await();
+      } catch (TerminalException e) {
+        LOG.warn("Task of job {} failed: {}", Restate.key(), e.getMessage());
+      }
+      Restate.virtualObjectHandle(Job.class, Restate.key())
+          .send(Job::taskCompleted, run.scheduledTime());
+    }
 
-      executeTask(request);
-      scheduleNextExecution(request);
+    // Schedules the execution after the one of a task that doesn't allow overlap
+    @Handler
+    public void taskCompleted(String scheduledTime) {
+      var jobState = Restate.state().get(JOB_STATE);
+      if (jobState.isEmpty()) {
+        // The job was cancelled while the task was running
+        return;
+      }
+      Restate.state().clear(RUNNING_TASK);
+      var now = Restate.run("now", ZonedDateTime.class, ZonedDateTime::now);
+      scheduleNextExecution(
+          jobState.get().request,
+          jobState.get().encodedPayload,
+          Optional.of(ZonedDateTime.parse(scheduledTime)),
+          now);
     }
 
     @Handler
     public void cancel() {
+      cancelWithoutIndex();
+      Restate.virtualObjectHandle(Index.class, INDEX_KEY).send(Index::remove, Restate.key());
+    }
+
+    // Used by cancelBatch, which removes all its jobs from the index with one call
+    @Handler
+    public void cancelWithoutIndex() {
+      // Jobs in a slot have no execution to cancel, the slot's call to execute finds no job state
       Restate.state()
           .get(JOB_STATE)
+          .filter(jobState -> jobState.nextExecutionId != null)
           .ifPresent(jobState -> Restate.invocationHandle(jobState.nextExecutionId).cancel());
+      // Cancelling runTask cancels its call to the task as well
+      Restate.state()
+          .get(RUNNING_TASK)
+          .ifPresent(invocationId -> Restate.invocationHandle(invocationId).cancel());
 
       // Clear the job state
       Restate.state().clearAll();
@@ -97,47 +358,259 @@ public class Cron {
       return Restate.state().get(JOB_STATE);
     }
 
-    private void executeTask(JobRequest job) {
+    // The request of one execution of the task, with the payload that was encoded at creation
+    static Request<byte[], byte[]> taskRequest(
+        JobRequest job, byte[] encodedPayload, ZonedDateTime scheduled, int executions) {
       Target target =
           (job.key.isPresent())
               ? Target.virtualObject(job.service, job.method, job.key.get())
               : Target.service(job.service, job.method);
-      var request =
-          (job.payload.isPresent())
-              ? Request.of(
-                  target, TypeTag.of(String.class), TypeTag.of(Void.class), job.payload.get())
-              : Request.of(target, new byte[0]);
-      Restate.send(request);
+      var binary =
+          job.payload.isEmpty()
+              || job.payloadEncoding.orElse(PayloadEncoding.STRING) == PayloadEncoding.BINARY;
+      var request = Request.of(target, binary ? Serde.RAW : JSON_BYTES, Serde.RAW, encodedPayload);
+      request
+          .header("x-cron-scheduled-time", scheduled.toString())
+          .header("x-cron-executions", String.valueOf(executions));
+      return request;
     }
 
-    private JobInfo scheduleNextExecution(JobRequest request) {
-      // Parse cron expression
-      ExecutionTime executionTime;
-      try {
-        executionTime = ExecutionTime.forCron(PARSER.parse(request.cronExpression));
-      } catch (IllegalArgumentException e) {
-        throw new TerminalException("Invalid cron expression: " + e.getMessage());
-      }
+    // previous is the scheduled time of the execution that just ran, if any. now is read by the
+    // caller, which needs it as well
+    private JobInfo scheduleNextExecution(
+        JobRequest request,
+        byte[] encodedPayload,
+        Optional<ZonedDateTime> previous,
+        ZonedDateTime now) {
+      var executionTime = parseExpression(request.cronExpression);
 
       // Calculate next execution time
-      var now = Restate.run("now", ZonedDateTime.class, ZonedDateTime::now);
-      var delay =
-          executionTime
-              .timeToNextExecution(now)
-              .orElseThrow(() -> new TerminalException("Cannot determine next execution time"));
+      var base = now;
+      if (previous.isPresent()
+          && request.misfirePolicy.orElse(MisfirePolicy.FIRE_ONCE_AND_SKIP)
+              == MisfirePolicy.FIRE_ALL
+          && missedExecutions(executionTime, previous.get(), now) <= MAX_CATCH_UP) {
+        // Continue right after the previous execution, so missed ones are run as well
+        base = previous.get();
+      }
       var next =
           executionTime
-              .nextExecution(now)
+              .nextExecution(base)
               .orElseThrow(() -> new TerminalException("Cannot determine next execution time"));
 
+      // A missed execution runs after the catch-up interval, which caps the rate of catching up
+      var fireAt =
+          next.isAfter(now)
+              ? next
+              : now.plus(
+                  Duration.ofMillis(60_000 / Math.max(1, request.catchUpPerMinute.orElse(10))));
+      var delay = Duration.between(now, fireAt);
+
       // Schedule next execution for this job
       String thisJobId = Restate.key(); // This got generated by the CronJobInitiator
-      var handle = Restate.virtualObjectHandle(Job.class, thisJobId).send(Job::execute, delay);
+      String nextExecutionId = null;
+      if (WHEEL) {
+        // Add the job to the slot that covers its next execution time
+        Restate.virtualObjectHandle(Slot.class, slotOf(fireAt)).send(Slot::add, thisJobId);
+      } else {
+        var handle = Restate.virtualObjectHandle(Job.class, thisJobId).send(Job::execute, delay);
+        nextExecutionId = handle.invocationId();
+      }
 
       // Save job state
-      var jobState = new JobInfo(request, next.toString(), handle.invocationId());
+      var jobState = new JobInfo(request, next.toString(), nextExecutionId, encodedPayload);
       Restate.state().set(JOB_STATE, jobState);
       return jobState;
     }
   }
+
+  static byte[] encodePayload(JobRequest request) {
+    if (request.payload.isEmpty()) {
+      return new byte[0];
+    }
+    var payload = request.payload.get();
+    try {
+      return switch (request.payloadEncoding.orElse(PayloadEncoding.STRING)) {
+        case STRING -> MAPPER.writeValueAsBytes(payload);
+        case JSON -> {
+          // Check it once here, instead of failing in the task on every execution
+          MAPPER.readTree(payload);
+          yield payload.getBytes(StandardCharsets.UTF_8);
+        }
+        case BINARY -> Base64.getDecoder().decode(payload);
+      };
+    } catch (IOException | IllegalArgumentException e) {
+      throw new TerminalException("Invalid payload: " + e.getMessage());
+    }
+  }
+
+  // Calls call(i) for every i below count, with at most BATCH_CONCURRENCY calls running. Returns
+  // the error message of every call, or null if it succeeded
+  private static <T> List<String> callWithWindow(int count, IntFunction<DurableFuture<T>> call) {
+    List<String> errors = new ArrayList<>(Collections.nCopies(count, null));
+    DurableFutures.callWithWindow(
+        count,
+        BATCH_CONCURRENCY,
+        call,
+        (index, future) -> {
+          try {
+            future.await();
+          } catch (TerminalException e) {
+            errors.set(index, e.getMessage());
+          }
+        });
+    return errors;
+  }
+
+  private static ExecutionTime parseExpression(String cronExpression) {
+    try {
+      return cachedExecutionTime(cronExpression);
+    } catch (IllegalArgumentException e) {
+      throw new TerminalException("Invalid cron expression: " + e.getMessage());
+    }
+  }
+
+  // Executions after from, up to and including to. Counts at most up to MAX_CATCH_UP + 1
+  private static int missedExecutions(
+      ExecutionTime executionTime, ZonedDateTime from, ZonedDateTime to) {
+    int missed = 0;
+    var time = executionTime.nextExecution(from);
+    while (time.isPresent() && !time.get().isAfter(to) && missed <= MAX_CATCH_UP) {
+      missed++;
+      time = executionTime.nextExecution(time.get());
+    }
+    return missed;
+  }
+
+  // Index of all jobs created through the CronJobInitiator, so they can be listed without knowing
+  // their IDs. The IDs are stored in pages of INDEX_PAGE_SIZE, each under its own state key, and
+  // every job remembers its page, so adding or removing a job only rewrites one page.
+  @Name("CronJobIndex")
+  @VirtualObject
+  public static class Index {
+
+    private static final StateKey<Integer> LAST_PAGE = StateKey.of("last-page", Integer.TYPE);
+
+    @Handler
+    public void addAll(List<String> jobIds) {
+      var state = Restate.state();
+      int lastPage = state.get(LAST_PAGE).orElse(0);
+      List<String> page = new ArrayList<>(state.get(pageKey(lastPage)).orElse(List.of()));
+      for (var jobId : jobIds) {
+        if (page.size() >= INDEX_PAGE_SIZE) {
+          state.set(pageKey(lastPage), page);
+          lastPage++;
+          page = new ArrayList<>();
+        }
+        page.add(jobId);
+        state.set(jobPageKey(jobId), lastPage);
+      }
+      state.set(pageKey(lastPage), page);
+      state.set(LAST_PAGE, lastPage);
+    }
+
+    @Handler
+    public void remove(String jobId) {
+      removeAll(List.of(jobId));
+    }
+
+    // Rewrites every page that had one of the jobs once
+    @Handler
+    public void removeAll(List<String> jobIds) {
+      var state = Restate.state();
+      Map<Integer, List<String>> pages = new HashMap<>();
+      for (var jobId : jobIds) {
+        var pageNumber = state.get(jobPageKey(jobId));
+        if (pageNumber.isEmpty()) {
+          continue;
+        }
+        pages
+            .computeIfAbsent(
+                pageNumber.get(),
+                number -> new ArrayList<>(state.get(pageKey(number)).orElse(List.of())))
+            .remove(jobId);
+        state.clear(jobPageKey(jobId));
+      }
+      pages.forEach((number, page) -> state.set(pageKey(number), page));
+    }
+
+    // Pages can be empty after their jobs were cancelled, continue with nextPage until it's empty
+    @Shared
+    public JobPage list(int page) {
+      var state = Restate.state();
+      int lastPage = state.get(LAST_PAGE).orElse(0);
+      var jobIds = state.get(pageKey(page)).orElse(List.of());
+      return new JobPage(jobIds, page < lastPage ? Optional.of(page + 1) : Optional.empty());
+    }
+
+    private static StateKey<List<String>> pageKey(int page) {
+      return StateKey.of("page-" + page, new TypeRef<>() {});
+    }
+
+    private static StateKey<Integer> jobPageKey(String jobId) {
+      return StateKey.of("job-" + jobId, Integer.TYPE);
+    }
+  }
+
+  // Jobs that are due in one slot of the timing wheel, keyed by the end of the slot in epoch
+  // seconds. Every job is stored under its own key, so adding a job doesn't rewrite the others.
+  @Name("CronSlot")
+  @VirtualObject
+  public static class Slot {
+
+    private static final StateKey<Integer> COUNT = StateKey.of("count", Integer.TYPE);
+    private static final StateKey<Integer> FIRED = StateKey.of("fired", Integer.TYPE);
+    private static final StateKey<Boolean> ARMED = StateKey.of("armed", Boolean.TYPE);
+
+    @Handler
+    public void add(String jobId) {
+      var state = Restate.state();
+      int count = state.get(COUNT).orElse(0);
+      state.set(jobKey(count), jobId);
+      state.set(COUNT, count + 1);
+
+      // The first job of the slot sets the timer of the slot
+      if (state.get(ARMED).isEmpty()) {
+        long now = Restate.run("now", Long.class, () -> ZonedDateTime.now().toEpochSecond());
+        var delay = Duration.ofSeconds(Math.max(0, Long.parseLong(Restate.key()) - now));
+        Restate.virtualObjectHandle(Slot.class, Restate.key()).send(Slot::fire, delay);
+        state.set(ARMED, true);
+      }
+    }
+
+    @Handler
+    public void fire() {
+      var state = Restate.state();
+      int count = state.get(COUNT).orElse(0);
+      int fired = state.get(FIRED).orElse(0);
+
+      int end = Math.min(count, fired + SLOT_FIRE_BATCH);
+      for (int i = fired; i < end; i++) {
+        var jobKey = jobKey(i);
+        state
+            .get(jobKey)
+            .ifPresent(jobId -> Restate.virtualObjectHandle(Job.class, jobId).send(Job::execute));
+        state.clear(jobKey);
+      }
+
+      if (end < count) {
+        // Send the rest in the next invocation, to keep the journal of each one bounded
+        state.set(FIRED, end);
+        Restate.virtualObjectHandle(Slot.class, Restate.key()).send(Slot::fire);
+      } else {
+        // Jobs that are added after this start a new timer, which fires right away
+        state.clearAll();
+      }
+    }
+
+    private static StateKey<String> jobKey(int index) {
+      return StateKey.of("job-" + index, String.class);
+    }
+  }
+
+  // Rounded up, so the slot never fires before the execution time of its jobs
+  private static String slotOf(ZonedDateTime executionTime) {
+    long epochSeconds = executionTime.toEpochSecond();
+    return String.valueOf((epochSeconds + SLOT_SECONDS - 1) / SLOT_SECONDS * SLOT_SECONDS);
+  }
 }
@@ -23,6 +23,10 @@ public class TaskService {
 
   public static void main(String[] args) {
     RestateHttpServer.listen(
-        Endpoint.bind(new Cron.JobInitiator()).bind(new Cron.Job()).bind(new TaskService()));
+        Endpoint.bind(new Cron.JobInitiator())
+            .bind(new Cron.Job())
+            .bind(new Cron.Slot())
+            .bind(new Cron.Index())
+            .bind(new TaskService()));
   }
 }
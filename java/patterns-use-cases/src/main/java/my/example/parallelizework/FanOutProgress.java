@@ -0,0 +1,25 @@
+package my.example.parallelizework;
+
+import dev.restate.sdk.Restate;
+import dev.restate.sdk.annotation.Handler;
+import dev.restate.sdk.annotation.Shared;
+import dev.restate.sdk.annotation.VirtualObject;
+import dev.restate.sdk.common.StateKey;
+import my.example.parallelizework.utils.Progress;
+
+// Partial result of a task of the FanOutWorker in incremental mode, keyed by task id
+@VirtualObject
+public class FanOutProgress {
+
+  private static final StateKey<Progress> PROGRESS = StateKey.of("progress", Progress.class);
+
+  @Handler
+  public void report(Progress progress) {
+    Restate.state().set(PROGRESS, progress);
+  }
+
+  @Shared
+  public Progress get() {
+    return Restate.state().get(PROGRESS).orElse(null);
+  }
+}
@@ -10,11 +10,21 @@ import dev.restate.sdk.endpoint.Endpoint;
 import dev.restate.sdk.http.vertx.RestateHttpServer;
 import dev.restate.serde.TypeRef;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import my.example.parallelizework.utils.Chunk;
+import my.example.parallelizework.utils.Combiner;
+import my.example.parallelizework.utils.Progress;
 import my.example.parallelizework.utils.Result;
 import my.example.parallelizework.utils.SubTask;
 import my.example.parallelizework.utils.SubTaskResult;
 import my.example.parallelizework.utils.Task;
+import my.example.utils.DurableFutures;
 
 /*
  * Restate makes it easy to parallelize async work by fanning out tasks.
@@ -35,28 +45,64 @@ import my.example.parallelizework.utils.Task;
  *          | Aggregate  |
  *          +------------+
  * Durable Execution ensures that the fan-out and fan-in steps happen reliably exactly once.
+ *
+ * Large tasks fan out as a tree: when there are more subtasks than FANOUT_CHUNK_SIZE, they are
+ * grouped into chunks that are handled by intermediate runChunk invocations, which fan out again.
+ * This keeps the journal of each invocation at most FANOUT_CHUNK_SIZE calls long.
+ * Each invocation keeps at most FANOUT_MAX_IN_FLIGHT calls running, and starts the next one as soon
+ * as one of them completes.
+ *
+ * With FANOUT_INCREMENTAL=true, the results are folded into a running accumulator with a Combiner,
+ * in subtask order, instead of being collected until the last one is done. A result that completes
+ * before the ones of earlier subtasks waits until those are folded in.
+ * Tasks with an id report the partial result to the FanOutProgress object with the same key.
+ *
+ * Subtasks with an estimated cost below FANOUT_LOCAL_COST_THRESHOLD run as Restate.runAsync blocks
+ * inside the parent invocation, at most FANOUT_LOCAL_THREADS at the same time. Expensive ones still
+ * run in their own runSubtask invocation. A task can override the threshold, e.g. to compare both.
  */
 
 @Service
 public class FanOutWorker {
 
+  // Maximum number of calls in the journal of one invocation, before it fans out to chunks
+  static final int CHUNK_SIZE = envInt("FANOUT_CHUNK_SIZE", 100);
+  // Maximum number of calls that one invocation has running at the same time
+  static final int MAX_IN_FLIGHT = envInt("FANOUT_MAX_IN_FLIGHT", 50);
+  // Fold the results into a running accumulator in subtask order, instead of collecting them all
+  static final boolean INCREMENTAL = "true".equals(System.getenv("FANOUT_INCREMENTAL"));
+  // Number of completed calls between two progress reports of the incremental mode
+  static final int PROGRESS_EVERY = envInt("FANOUT_PROGRESS_EVERY", 10);
+  static final Combiner<SubTaskResult> RESULT_COMBINER = JOIN_RESULTS;
+  // Subtasks with a lower estimated cost run locally, 0 runs every subtask in its own invocation
+  static final int LOCAL_COST_THRESHOLD = envInt("FANOUT_LOCAL_COST_THRESHOLD", 0);
+  // Bounds the number of cheap subtasks that run locally at the same time, across invocations
+  private static final Semaphore LOCAL_SLOTS =
+      new Semaphore(envInt("FANOUT_LOCAL_THREADS", Runtime.getRuntime().availableProcessors()));
+
   @Handler
   public Result run(Task task) {
     // Split the task in subtasks
     var subTasks = Restate.run("split", new TypeRef<List<SubTask>>() {}, () -> split(task));
+    int localCostThreshold =
+        task.localCostThreshold() != null ? task.localCostThreshold() : LOCAL_COST_THRESHOLD;
 
-    // Fan out the subtasks - run them in parallel
-    List<DurableFuture<?>> resultFutures = new ArrayList<>();
-    for (SubTask subTask : subTasks) {
-      resultFutures.add(
-          Restate.serviceHandle(FanOutWorker.class).call(FanOutWorker::runSubtask, subTask));
+    if (INCREMENTAL) {
+      // Fan out the subtasks and fold the results in as soon as all earlier ones completed
+      return aggregate(List.of(fanOutAndReduce(subTasks, localCostThreshold, task.id())));
     }
 
-    DurableFuture.all(resultFutures).await();
+    // Fan out the subtasks and fan in - Aggregate the results
+    return aggregate(fanOut(subTasks, localCostThreshold));
+  }
 
-    // Fan in - Aggregate the results
-    var results = resultFutures.stream().map(future -> (SubTaskResult) future.await()).toList();
-    return aggregate(results);
+  // Intermediate aggregator of the tree: fans out one chunk and returns its combined result
+  @Handler
+  public SubTaskResult runChunk(Chunk chunk) {
+    if (INCREMENTAL) {
+      return fanOutAndReduce(chunk.subTasks(), chunk.localCostThreshold(), null);
+    }
+    return combine(fanOut(chunk.subTasks(), chunk.localCostThreshold()));
   }
 
   // Can also run on FaaS
@@ -67,7 +113,106 @@ public class FanOutWorker {
     return executeSubtask(subTask);
   }
 
+  private static List<SubTaskResult> fanOut(List<SubTask> subTasks, int localCostThreshold) {
+    var groups = group(subTasks);
+    List<SubTaskResult> results = new ArrayList<>(Collections.nCopies(groups.size(), null));
+    callWithWindow(groups, localCostThreshold, (index, result) -> results.set(index, result));
+    return results;
+  }
+
+  // Keeps the running accumulator of the results in group order, and the results that completed
+  // ahead of it. Reports the accumulator to FanOutProgress if there is a task id
+  private static SubTaskResult fanOutAndReduce(
+      List<SubTask> subTasks, int localCostThreshold, String taskId) {
+    var groups = group(subTasks);
+    var accumulator = new SubTaskResult[] {RESULT_COMBINER.identity()};
+    // At most one entry per group, and there are at most CHUNK_SIZE groups
+    Map<Integer, SubTaskResult> ahead = new HashMap<>();
+    // Number of groups and subtasks folded into the accumulator
+    var completed = new int[] {0, 0};
+    callWithWindow(
+        groups,
+        localCostThreshold,
+        (index, result) -> {
+          ahead.put(index, result);
+          int foldedBefore = completed[0];
+          while (ahead.containsKey(completed[0])) {
+            accumulator[0] = RESULT_COMBINER.combine(accumulator[0], ahead.remove(completed[0]));
+            completed[1] += groups.get(completed[0]).size();
+            completed[0]++;
+          }
+          if (taskId != null
+              && completed[0] > foldedBefore
+              && (completed[0] / PROGRESS_EVERY > foldedBefore / PROGRESS_EVERY
+                  || completed[0] == groups.size())) {
+            Restate.virtualObjectHandle(FanOutProgress.class, taskId)
+                .send(
+                    FanOutProgress::report,
+                    new Progress(completed[1], subTasks.size(), accumulator[0]));
+          }
+        });
+    return accumulator[0];
+  }
+
+  // Small tasks run every subtask directly. Tasks with too many subtasks for one journal are
+  // grouped in at most CHUNK_SIZE chunks
+  static <T> List<List<T>> group(List<T> subTasks) {
+    int perGroup =
+        subTasks.size() <= CHUNK_SIZE ? 1 : (subTasks.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    List<List<T>> groups = new ArrayList<>();
+    for (int i = 0; i < subTasks.size(); i += perGroup) {
+      groups.add(subTasks.subList(i, Math.min(i + perGroup, subTasks.size())));
+    }
+    return groups;
+  }
+
+  private static DurableFuture<SubTaskResult> call(List<SubTask> group, int localCostThreshold) {
+    var worker = Restate.serviceHandle(FanOutWorker.class);
+    if (group.size() > 1) {
+      return worker.call(FanOutWorker::runChunk, new Chunk(group, localCostThreshold));
+    }
+
+    var subTask = group.get(0);
+    if (estimateCost(subTask) < localCostThreshold) {
+      // Cheap subtask - run it in this invocation, instead of paying for a separate one
+      return Restate.runAsync(
+          "run subtask locally",
+          SubTaskResult.class,
+          () -> {
+            LOCAL_SLOTS.acquire();
+            try {
+              return executeSubtaskLocally(subTask);
+            } finally {
+              LOCAL_SLOTS.release();
+            }
+          });
+    }
+    return worker.call(FanOutWorker::runSubtask, subTask);
+  }
+
+  // Calls every group, with at most MAX_IN_FLIGHT calls running, and passes each result with the
+  // index of its group in completion order
+  private static void callWithWindow(
+      List<List<SubTask>> groups,
+      int localCostThreshold,
+      BiConsumer<Integer, SubTaskResult> onResult) {
+    DurableFutures.callWithWindow(
+        groups.size(),
+        MAX_IN_FLIGHT,
+        i -> call(groups.get(i), localCostThreshold),
+        (index, future) -> onResult.accept(index, future.await()));
+  }
+
+  private static SubTaskResult combine(List<SubTaskResult> results) {
+    return new SubTaskResult(
+        results.stream().map(SubTaskResult::description).collect(Collectors.joining(", ")));
+  }
+
+  private static int envInt(String name, int defaultValue) {
+    return System.getenv(name) != null ? Integer.parseInt(System.getenv(name)) : defaultValue;
+  }
+
   public static void main(String[] args) {
-    RestateHttpServer.listen(Endpoint.bind(new FanOutWorker()));
+    RestateHttpServer.listen(Endpoint.bind(new FanOutWorker()).bind(new FanOutProgress()));
   }
 }
@@ -0,0 +1,5 @@
+package my.example.parallelizework.utils;
+
+import java.util.List;
+
+public record Chunk(List<SubTask> subTasks, int localCostThreshold) {}
@@ -0,0 +1,13 @@
+package my.example.parallelizework.utils;
+
+/**
+ * Folds partial results into one. The incremental mode of the FanOutWorker combines the results in
+ * the order of their subtasks, and combines the results of chunks again in their parent. So combine
+ * must be associative, and identity must be its neutral element. It doesn't need to be commutative:
+ * the result is the same as folding all subtask results from left to right.
+ */
+public interface Combiner<T> {
+  T identity();
+
+  T combine(T a, T b);
+}
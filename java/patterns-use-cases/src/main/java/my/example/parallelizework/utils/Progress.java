@@ -0,0 +1,3 @@
+package my.example.parallelizework.utils;
+
+public record Progress(int completedSubtasks, int totalSubtasks, SubTaskResult partialResult) {}
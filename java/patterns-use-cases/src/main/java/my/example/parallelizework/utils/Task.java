@@ -1,3 +1,5 @@
 package my.example.parallelizework.utils;
 
-public record Task(String description) {}
+// The id is optional, with an id the incremental mode reports its progress to FanOutProgress/{id}
+// The local cost threshold is optional, and overrides FANOUT_LOCAL_COST_THRESHOLD for this task
+public record Task(String description, String id, Integer localCostThreshold) {}
@@ -4,6 +4,8 @@ import dev.restate.sdk.Restate;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -12,6 +14,32 @@ public class Utils {
 
   private static final Logger logger = LogManager.getLogger(Utils.class);
 
+  // Set to 0 to run the subtasks without sleeping, e.g. for the scaling benchmark
+  private static final int SUBTASK_MAX_SLEEP_SECONDS =
+      System.getenv("SUBTASK_MAX_SLEEP_SECONDS") != null
+          ? Integer.parseInt(System.getenv("SUBTASK_MAX_SLEEP_SECONDS"))
+          : 10;
+
+  // Joins the descriptions in subtask order. Associative, but not commutative
+  public static final Combiner<SubTaskResult> JOIN_RESULTS =
+      new Combiner<>() {
+        @Override
+        public SubTaskResult identity() {
+          return new SubTaskResult("");
+        }
+
+        @Override
+        public SubTaskResult combine(SubTaskResult a, SubTaskResult b) {
+          if (a.description().isEmpty()) {
+            return b;
+          }
+          if (b.description().isEmpty()) {
+            return a;
+          }
+          return new SubTaskResult(a.description() + ", " + b.description());
+        }
+      };
+
   public static List<SubTask> split(Task task) {
     // Split the task into subTasks
     return Arrays.stream(task.description().split(",")).map(SubTask::new).toList();
@@ -20,12 +48,30 @@ public class Utils {
   public static SubTaskResult executeSubtask(SubTask subtask) {
     // Execute subtask
     logger.info("Started executing subtask: {}", subtask.description());
-    // Sleep for a random amount between 0 and 5 seconds
-    Restate.sleep(Duration.ofSeconds(Restate.random().nextInt(0, 10)));
+    // Sleep for a random amount between 0 and SUBTASK_MAX_SLEEP_SECONDS seconds
+    if (SUBTASK_MAX_SLEEP_SECONDS > 0) {
+      Restate.sleep(Duration.ofSeconds(Restate.random().nextInt(0, SUBTASK_MAX_SLEEP_SECONDS)));
+    }
     logger.info("Execution subtask finished: {}", subtask.description());
     return new SubTaskResult(subtask.description() + ": DONE");
   }
 
+  // Stand-in for a real cost model, e.g. the input size or the expected duration of the subtask
+  public static int estimateCost(SubTask subtask) {
+    return subtask.description().length();
+  }
+
+  // Same work as executeSubtask, for cheap subtasks that run inside a Restate.run block. They can't
+  // use durable sleeps or calls, so this one sleeps on the thread
+  public static SubTaskResult executeSubtaskLocally(SubTask subtask) throws InterruptedException {
+    logger.info("Started executing subtask locally: {}", subtask.description());
+    if (SUBTASK_MAX_SLEEP_SECONDS > 0) {
+      TimeUnit.SECONDS.sleep(ThreadLocalRandom.current().nextInt(0, SUBTASK_MAX_SLEEP_SECONDS));
+    }
+    logger.info("Execution subtask finished locally: {}", subtask.description());
+    return new SubTaskResult(subtask.description() + ": DONE");
+  }
+
   public static Result aggregate(List<SubTaskResult> subResults) {
     // Aggregate the results
     String resultDescription =
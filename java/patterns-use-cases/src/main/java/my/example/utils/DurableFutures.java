@@ -0,0 +1,36 @@
+package my.example.utils;
+
+import dev.restate.sdk.DurableFuture;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+public class DurableFutures {
+
+  // Calls call(i) for every i below count, with at most maxInFlight calls running, and starts the
+  // next one as soon as one completes. Passes every completed future with its index to onComplete,
+  // in completion order. Awaiting it there returns its result right away, or throws its failure.
+  public static <T> void callWithWindow(
+      int count,
+      int maxInFlight,
+      IntFunction<DurableFuture<T>> call,
+      BiConsumer<Integer, DurableFuture<T>> onComplete) {
+    List<DurableFuture<T>> inFlight = new ArrayList<>();
+    List<Integer> inFlightIndexes = new ArrayList<>();
+    int next = 0;
+    while (next < count || !inFlight.isEmpty()) {
+      // Refill the window
+      while (next < count && inFlight.size() < maxInFlight) {
+        inFlight.add(call.apply(next));
+        inFlightIndexes.add(next);
+        next++;
+      }
+
+      // Wait for any of the running calls to complete
+      List<DurableFuture<?>> running = new ArrayList<>(inFlight);
+      int completed = DurableFuture.any(running).await();
+      onComplete.accept(inFlightIndexes.remove(completed), inFlight.remove(completed));
+    }
+  }
+}